@@ -0,0 +1,90 @@
+import benchmarks.Pipeline;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs the steps of the query pipeline over synthetic inputs, in a local SparkSession.
+ */
+public class BenchmarkPipeline implements Pipeline {
+
+    private final SparkSession sparkSession;
+    private final JoinPlanner joinPlanner;
+    private String inputDir;
+    private String parquetDir;
+
+    /**
+     * Instantiates a new Benchmark pipeline with a local session.
+     */
+    public BenchmarkPipeline() {
+        this(SparkSession.builder()
+                         .appName("bank-analysis-spark-sql-benchmarks")
+                         .master("local[*]")
+                         .getOrCreate());
+    }
+
+    /**
+     * Instantiates a new Benchmark pipeline.
+     *
+     * @param sparkSession the spark session
+     */
+    public BenchmarkPipeline(SparkSession sparkSession) {
+        this.sparkSession = sparkSession;
+        this.joinPlanner = new JoinPlanner(Integer.parseInt(sparkSession.conf().get("spark.sql.shuffle.partitions")),
+                                           10L * 1024 * 1024);
+    }
+
+    public SparkSession getSparkSession() {
+        return sparkSession;
+    }
+
+    @Override
+    public void prepare(long rows, String dataDir) throws IOException {
+        inputDir = new Path(dataDir, "rows-" + rows).toString();
+        parquetDir = new Path(inputDir, "parquet").toString();
+
+        Path marker = new Path(inputDir, "_GENERATED");
+        FileSystem fs = marker.getFileSystem(sparkSession.sparkContext().hadoopConfiguration());
+        if (!fs.exists(marker)) {
+            SyntheticDataGenerator.generate(sparkSession, rows, inputDir);
+            fs.create(marker, true).close();
+        }
+
+        ParquetIngest.ingest(sparkSession, inputDir, parquetDir, SchemaRegistry.ParseMode.PERMISSIVE, joinPlanner);
+        joinPlanner.join(sparkSession, parquetDir).createOrReplaceTempView("raw_pessoas");
+        ParquetIngest.readPessoas(sparkSession, parquetDir).createOrReplaceTempView("pessoas");
+    }
+
+    @Override
+    public long csvIngest() {
+        Dataset<Row> raw = sparkSession.read()
+                                       .option("header", true)
+                                       .csv(new Path(inputDir, SourceTable.BASICO.fileName() + ".csv").toString());
+        return SchemaRegistry.typed(raw, SourceTable.BASICO, SchemaRegistry.ParseMode.PERMISSIVE).count();
+    }
+
+    @Override
+    public long join() throws IOException {
+        return joinPlanner.join(sparkSession, parquetDir).count();
+    }
+
+    @Override
+    public long cleanUp() throws IOException {
+        return Main.cleanUp(joinPlanner.join(sparkSession, parquetDir)).count();
+    }
+
+    @Override
+    public List<?> runAnalysis(String name) {
+        return Main.analyses().get(name).run(sparkSession).collectAsList();
+    }
+
+    @Override
+    public void close() {
+        sparkSession.stop();
+    }
+}
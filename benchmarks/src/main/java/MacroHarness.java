@@ -0,0 +1,141 @@
+import org.apache.spark.SparkContext;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs every analysis once over synthetic inputs, records its wall time and Spark stage metrics, and compares
+ * them against a stored baseline.
+ *
+ * Usage: MacroHarness rows baseline.properties [tolerance] [--update-baseline]
+ *
+ * A metric regresses when it grows by more than the tolerance (0.2 by default) and by more than its noise floor.
+ * The process exits with status 1 on any regression, so it can gate a build. When the baseline does not exist,
+ * or --update-baseline is given, the measured metrics become the new baseline.
+ */
+public final class MacroHarness {
+
+    private static final List<String> METRICS = Arrays.asList(
+            "wallTimeMs", "shuffleBytesWritten", "shuffleBytesRead", "bytesSpilled", "gcTimeMs");
+    private static final long TIME_NOISE_FLOOR_MS = 100;
+    private static final long BYTES_NOISE_FLOOR = 1024 * 1024;
+    private static final long LISTENER_TIMEOUT_MS = 10000;
+
+    private MacroHarness() {
+    }
+
+    /**
+     * The entry point of the harness.
+     *
+     * @param args the rows, the baseline file, the optional tolerance and --update-baseline flag
+     * @throws IOException          if the data or the baseline cannot be read or written
+     * @throws InterruptedException if interrupted while waiting for the listener
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: MacroHarness rows baseline.properties [tolerance] [--update-baseline]");
+            System.exit(2);
+        }
+        long rows = Long.parseLong(args[0]);
+        String baselineFile = args[1];
+        List<String> options = Arrays.asList(args).subList(2, args.length);
+        boolean updateBaseline = options.contains("--update-baseline") || !Files.exists(Paths.get(baselineFile));
+        double tolerance = 0.2;
+        for (String option : options) {
+            if (!option.startsWith("--")) {
+                tolerance = Double.parseDouble(option);
+            }
+        }
+
+        Properties current = new Properties();
+        try (BenchmarkPipeline pipeline = new BenchmarkPipeline()) {
+            SparkContext sparkContext = pipeline.getSparkSession().sparkContext();
+            StageMetricsListener listener = new StageMetricsListener();
+            sparkContext.addSparkListener(listener);
+            pipeline.prepare(rows, System.getProperty("bench.dataDir", "target/bench-data"));
+
+            for (String name : Main.analyses().keySet()) {
+                long[] before = totals(listener);
+                sparkContext.setJobGroup(name, name, false);
+                long start = System.currentTimeMillis();
+                pipeline.runAnalysis(name);
+                long wallTime = System.currentTimeMillis() - start;
+                sparkContext.clearJobGroup();
+                awaitJobs(listener, sparkContext.statusTracker().getJobIdsForGroup(name));
+                long[] after = totals(listener);
+
+                current.setProperty(name + ".wallTimeMs", String.valueOf(wallTime));
+                for (int i = 0; i < before.length; i++) {
+                    current.setProperty(name + "." + METRICS.get(i + 1), String.valueOf(after[i] - before[i]));
+                }
+            }
+        }
+
+        Files.createDirectories(Paths.get("target"));
+        try (OutputStream out = new FileOutputStream("target/macro-" + rows + ".properties")) {
+            current.store(out, "Macro benchmark, " + rows + " rows");
+        }
+
+        if (updateBaseline) {
+            try (OutputStream out = new FileOutputStream(baselineFile)) {
+                current.store(out, "Macro benchmark baseline, " + rows + " rows");
+            }
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        Properties baseline = new Properties();
+        try (InputStream in = new FileInputStream(baselineFile)) {
+            baseline.load(in);
+        }
+        List<String> regressions = compare(baseline, current, tolerance);
+        if (!regressions.isEmpty()) {
+            for (String regression : regressions) {
+                System.err.println("REGRESSION " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("No regression against " + baselineFile);
+    }
+
+    private static List<String> compare(Properties baseline, Properties current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (String key : current.stringPropertyNames()) {
+            String expected = baseline.getProperty(key);
+            long value = Long.parseLong(current.getProperty(key));
+            System.out.println(key + ": " + value + (expected == null ? " (no baseline)" : " (baseline " + expected + ")"));
+            if (expected == null) {
+                continue;
+            }
+            long reference = Long.parseLong(expected);
+            long noiseFloor = key.endsWith("Ms") ? TIME_NOISE_FLOOR_MS : BYTES_NOISE_FLOOR;
+            if (value > reference * (1 + tolerance) && value - reference > noiseFloor) {
+                regressions.add(key + ": " + value + " > " + reference);
+            }
+        }
+        return regressions;
+    }
+
+    private static long[] totals(StageMetricsListener listener) {
+        return new long[]{listener.getShuffleBytesWritten(), listener.getShuffleBytesRead(),
+                          listener.getBytesSpilled(), listener.getGcTimeMs()};
+    }
+
+    private static void awaitJobs(StageMetricsListener listener, int[] jobIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + LISTENER_TIMEOUT_MS;
+        for (int jobId : jobIds) {
+            while (!listener.isJobCompleted(jobId) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.StructField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Writes ommlbd_*.csv shaped inputs with a given number of clients, following the schemas of {@link SourceTable}.
+ *
+ * Values are random but seeded, and about 2% of the numeric values are negative so the cleanUp predicates
+ * reject a realistic share of the rows.
+ */
+public final class SyntheticDataGenerator {
+
+    private static final String[] ORIENTATIONS = {"HETERO", "HOMO", "BI", "PAN"};
+
+    private SyntheticDataGenerator() {
+    }
+
+    /**
+     * Generates the data and writes one ommlbd_*.csv directory per source table.
+     *
+     * @param sparkSession the spark session
+     * @param rows         the number of clients
+     * @param outputDir    the directory the CSV files are written to
+     */
+    public static void generate(SparkSession sparkSession, long rows, String outputDir) {
+        long seed = 0;
+        for (SourceTable table : SourceTable.values()) {
+            List<Column> columns = new ArrayList<>();
+            for (StructField field : SchemaRegistry.schemaOf(table).fields()) {
+                columns.add(valueOf(field, seed++).as(field.name()));
+            }
+            sparkSession.range(rows)
+                        .select(columns.toArray(new Column[0]))
+                        .write()
+                        .mode(SaveMode.Overwrite)
+                        .option("header", true)
+                        .csv(new Path(outputDir, table.fileName() + ".csv").toString());
+        }
+    }
+
+    private static Column valueOf(StructField field, long seed) {
+        if (field.name().equals(SourceTable.KEY)) {
+            return lpad(col("id").cast("string"), 11, "0");
+        }
+        if (field.name().equals("ORIENTACAO_SEXUAL")) {
+            Column orientation = lit(ORIENTATIONS[0]);
+            for (int i = 1; i < ORIENTATIONS.length; i++) {
+                orientation = when(col("id").mod(ORIENTATIONS.length).equalTo(i), ORIENTATIONS[i]).otherwise(orientation);
+            }
+            return orientation;
+        }
+
+        Column value;
+        if (field.name().equals("ESTIMATIVARENDA")) {
+            value = rand(seed).multiply(20000);
+        } else if (field.name().equals("IDHMUNICIPIO")) {
+            value = rand(seed).multiply(100);
+        } else if (field.name().equals("TARGET") || field.name().startsWith("BOLSAFAMILIA")
+                || field.name().startsWith("FUNCIONARIOPUBLICO") || field.name().equals("SOCIOEMPRESA")) {
+            value = floor(rand(seed).multiply(2));
+        } else {
+            value = floor(rand(seed).multiply(10)).plus(1);
+        }
+
+        return when(rand(seed + 1000).lt(0.02), lit(-1)).otherwise(value).cast(field.dataType());
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The steps of the query pipeline, as seen by the benchmarks.
+ *
+ * JMH does not accept benchmarks in the default package, while the pipeline classes live there and cannot be
+ * imported from a named package. The implementation, BenchmarkPipeline, is therefore loaded by name.
+ */
+public interface Pipeline extends AutoCloseable {
+
+    /**
+     * Loads the default-package implementation.
+     *
+     * @return a new pipeline
+     */
+    static Pipeline load() {
+        try {
+            return (Pipeline) Class.forName("BenchmarkPipeline").newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkPipeline is not on the classpath", e);
+        }
+    }
+
+    /**
+     * Generates the inputs for a number of clients, unless already present, ingests them to Parquet and
+     * registers the raw_pessoas and pessoas views.
+     *
+     * @param rows    the number of clients
+     * @param dataDir the directory holding the generated data of every size
+     * @throws IOException if the ingest fails
+     */
+    void prepare(long rows, String dataDir) throws IOException;
+
+    /**
+     * Parses and types the basico CSV file.
+     *
+     * @return the number of rows read
+     */
+    long csvIngest();
+
+    /**
+     * Joins the five ingested tables.
+     *
+     * @return the number of joined rows
+     * @throws IOException if the table sizes cannot be read
+     */
+    long join() throws IOException;
+
+    /**
+     * Joins the five ingested tables and cleans the result.
+     *
+     * @return the number of clean rows
+     * @throws IOException if the table sizes cannot be read
+     */
+    long cleanUp() throws IOException;
+
+    /**
+     * Runs a registered analysis.
+     *
+     * @param name the analysis name
+     * @return the collected rows
+     */
+    List<?> runAnalysis(String name);
+
+    /**
+     * Stops the Spark session.
+     */
+    @Override
+    void close();
+}
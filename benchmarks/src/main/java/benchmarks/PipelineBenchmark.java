@@ -0,0 +1,80 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of each step of the query pipeline, over synthetic inputs of 100k, 1M and 10M clients.
+ *
+ * Run with: java -jar target/benchmarks.jar PipelineBenchmark -p rows=100000
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public long rows;
+
+    private Pipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pipeline = Pipeline.load();
+        pipeline.prepare(rows, System.getProperty("bench.dataDir", "target/bench-data"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public void csvIngest(Blackhole blackhole) {
+        blackhole.consume(pipeline.csvIngest());
+    }
+
+    @Benchmark
+    public void join(Blackhole blackhole) throws IOException {
+        blackhole.consume(pipeline.join());
+    }
+
+    @Benchmark
+    public void cleanUp(Blackhole blackhole) throws IOException {
+        blackhole.consume(pipeline.cleanUp());
+    }
+
+    @Benchmark
+    public void exercise(QueryState query, Blackhole blackhole) {
+        blackhole.consume(pipeline.runAnalysis(query.analysis));
+    }
+
+    /**
+     * The analysis run by {@link #exercise(QueryState, Blackhole)}, kept apart so it does not multiply the other
+     * benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class QueryState {
+
+        @Param({"exercise1", "exercise2", "exercise3", "exercise4", "exercise5", "exercise6", "exercise7", "exercise8"})
+        public String analysis;
+    }
+}
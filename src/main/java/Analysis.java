@@ -0,0 +1,17 @@
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.SparkSession;
+
+/**
+ * An analysis over the pessoas views that can be run by the {@link ReportRunner}.
+ */
+@FunctionalInterface
+public interface Analysis {
+
+    /**
+     * Builds the result of the analysis.
+     *
+     * @param sparkSession the spark session
+     * @return the result dataset, of rows or of typed results like {@link OrientationCount}
+     */
+    Dataset<?> run(SparkSession sparkSession);
+}
@@ -0,0 +1,246 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.SparkSession;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The settings of a run, layered from lowest to highest precedence:
+ *
+ * the defaults below,
+ * the properties file given by --bank.config=... or -Dbank.config=...,
+ * the bank.* and spark.* system properties, which includes the settings passed to spark-submit,
+ * the --key=value arguments.
+ *
+ * spark-submit always sets spark.master, to local[*] when --master is not given, so under spark-submit the master
+ * comes from --master and a spark.master in the properties file is ignored, with a warning.
+ *
+ * The other arguments are the names of the analyses to run. Every spark.* setting is passed to the SparkSession,
+ * so the master URL, serializer, executor memory, off-heap memory and adaptive execution are all configured the
+ * same way. Paths are Hadoop URIs, so they can point to the local file system or to HDFS.
+ */
+public final class AppConfig {
+
+    /**
+     * The properties file holding the settings.
+     */
+    public static final String CONFIG = "bank.config";
+
+    /**
+     * The directory holding the ommlbd_*.csv files.
+     */
+    public static final String INPUT_DIR = "bank.input.dir";
+
+    /**
+     * The directory the Parquet tables are written to.
+     */
+    public static final String PARQUET_DIR = "bank.parquet.dir";
+
+    /**
+     * The directory holding the checkpoints of the streaming queries.
+     */
+    public static final String CHECKPOINT_DIR = "bank.checkpoint.dir";
+
+    /**
+     * The input bytes per shuffle partition when spark.sql.shuffle.partitions is not set.
+     */
+    public static final String SHUFFLE_PARTITION_BYTES = "bank.shuffle.partitionBytes";
+
+    private static final String SHUFFLE_PARTITIONS = "spark.sql.shuffle.partitions";
+    private static final String MASTER = "spark.master";
+    private static final Logger LOGGER = Logger.getLogger(AppConfig.class);
+
+    private final Properties properties;
+    private final List<String> arguments;
+
+    private AppConfig(Properties properties, List<String> arguments) {
+        this.properties = properties;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Loads the settings of a run.
+     *
+     * @param args the command line arguments
+     * @return the settings
+     * @throws IOException              if the properties file cannot be read
+     * @throws IllegalArgumentException if an argument starts with -- but is not a key=value pair
+     */
+    public static AppConfig load(String[] args) throws IOException {
+        Properties cli = new Properties();
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                arguments.add(arg);
+            } else if (arg.indexOf('=') > 2) {
+                cli.setProperty(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+        }
+
+        Properties system = new Properties();
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("bank.") || key.startsWith("spark.")) {
+                system.setProperty(key, System.getProperty(key));
+            }
+        }
+
+        Properties properties = defaults();
+        Properties fromFile = new Properties();
+        String file = cli.getProperty(CONFIG, system.getProperty(CONFIG));
+        if (file != null) {
+            LOGGER.info("Reading settings from " + file);
+            Path path = new Path(file);
+            try (FSDataInputStream stream = path.getFileSystem(new Configuration()).open(path);
+                 Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                fromFile.load(reader);
+            }
+        }
+        properties.putAll(fromFile);
+
+        // spark-submit sets spark.master even without --master, which silently wins over the file
+        String fileMaster = fromFile.getProperty(MASTER);
+        if (fileMaster != null && system.getProperty(MASTER) != null && !fileMaster.equals(system.getProperty(MASTER))
+                && cli.getProperty(MASTER) == null) {
+            LOGGER.warn(MASTER + "=" + fileMaster + " from " + file + " is overridden by " + MASTER + "="
+                                + system.getProperty(MASTER) + ", pass --master to spark-submit instead");
+        }
+        properties.putAll(system);
+        properties.putAll(cli);
+        return new AppConfig(properties, Collections.unmodifiableList(arguments));
+    }
+
+    private static Properties defaults() {
+        Properties defaults = new Properties();
+        defaults.setProperty(MASTER, "local[*]");
+        defaults.setProperty("spark.scheduler.mode", "FAIR");
+        defaults.setProperty("spark.serializer", "org.apache.spark.serializer.KryoSerializer");
+        defaults.setProperty(INPUT_DIR, "files");
+        defaults.setProperty(PARQUET_DIR, "files/parquet");
+        defaults.setProperty(CHECKPOINT_DIR, "files/checkpoints");
+        defaults.setProperty(SHUFFLE_PARTITION_BYTES, String.valueOf(64L * 1024 * 1024));
+        return defaults;
+    }
+
+    /**
+     * Gets the arguments that are not settings.
+     *
+     * @return the analysis names
+     */
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    public boolean contains(String key) {
+        return properties.getProperty(key) != null;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        long value = getLong(key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(key + " must fit in an int, got " + value);
+        }
+        return (int) value;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be an integer, got " + value, e);
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a number, got " + value, e);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Gets the settings to pass to the SparkSession.
+     *
+     * @return the spark.* settings, by key
+     */
+    public Map<String, String> sparkSettings() {
+        Map<String, String> settings = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("spark.")) {
+                settings.put(key, properties.getProperty(key));
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Builds the SparkSession with every spark.* setting.
+     *
+     * @param appName the application name
+     * @return the spark session
+     */
+    public SparkSession sparkSession(String appName) {
+        SparkSession.Builder builder = SparkSession.builder().appName(appName);
+        for (Map.Entry<String, String> setting : sparkSettings().entrySet()) {
+            builder.config(setting.getKey(), setting.getValue());
+        }
+        return builder.getOrCreate();
+    }
+
+    /**
+     * Sizes spark.sql.shuffle.partitions from the ommlbd_*.csv source files, unless it is set: one partition per
+     * {@link #SHUFFLE_PARTITION_BYTES} of input, but no fewer than the default parallelism of the cluster, so small
+     * inputs are not split in hundreds of tiny tasks and large inputs keep partitions of a bounded size. Only the
+     * source files are counted, not the Parquet tables, checkpoints or outputs that may live under the input dir.
+     *
+     * @param sparkSession the spark session
+     * @return the shuffle partitions in use
+     * @throws IOException if the size of the input cannot be read
+     */
+    public int configureShufflePartitions(SparkSession sparkSession) throws IOException {
+        if (contains(SHUFFLE_PARTITIONS)) {
+            return getInt(SHUFFLE_PARTITIONS, 0);
+        }
+        Path input = new Path(get(INPUT_DIR, null));
+        FileSystem fs = input.getFileSystem(sparkSession.sparkContext().hadoopConfiguration());
+        long bytes = 0;
+        for (SourceTable table : SourceTable.values()) {
+            Path csv = new Path(input, table.fileName() + ".csv");
+            if (fs.exists(csv)) {
+                bytes += fs.getFileStatus(csv).getLen();
+            }
+        }
+        long partitionBytes = Math.max(1, getLong(SHUFFLE_PARTITION_BYTES, 0));
+        long needed = bytes / partitionBytes + (bytes % partitionBytes == 0 ? 0 : 1);
+        int partitions = (int) Math.min(Integer.MAX_VALUE,
+                                        Math.max(sparkSession.sparkContext().defaultParallelism(), needed));
+        LOGGER.info("Using " + partitions + " shuffle partitions for " + bytes + " bytes of input");
+        sparkSession.conf().set(SHUFFLE_PARTITIONS, partitions);
+        return partitions;
+    }
+}
@@ -0,0 +1,324 @@
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.expressions.Window;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.util.sketch.CountMinSketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Answers the exercises approximately from a stratified sample of pessoas, for interactive exploration.
+ *
+ * The sample is stratified by {@link ResultCube#INCOME_BAND}: every band keeps the sample fraction of its rows but
+ * at least a minimum number of them, so the rare high income clients the exercises filter on are well represented.
+ * Counts are estimated by weighting each sampled row with the size of its band, and reported with the half width
+ * of their 95% confidence interval. The distinct clients come from a HyperLogLog sketch (approx_count_distinct), the
+ * proposals per client from a count-min sketch over HS_CPF and the income quantiles from percentile_approx, all built
+ * in the same preparation, so answering an analysis only reads the sample.
+ *
+ * The analyses are registered under the name of the exact analysis prefixed with {@link #PREFIX}, so the exact
+ * analyses in {@link Main} are unaffected and remain the ones to use for final reports.
+ */
+public class ApproximateMode {
+
+    /**
+     * The name of the view holding the sample.
+     */
+    public static final String SAMPLE_VIEW = "pessoas_sample";
+
+    /**
+     * The estimated number of rows.
+     */
+    public static final String ESTIMATE = "estimate";
+
+    /**
+     * The half width of the 95% confidence interval of the estimate.
+     */
+    public static final String ERROR_BOUND = "error_bound";
+
+    /**
+     * The prefix of the names of the approximate analyses.
+     */
+    public static final String PREFIX = "approx.";
+
+    private static final String STRATUM = "STRATUM";
+    private static final String STRATUM_ROWS = "STRATUM_ROWS";
+    private static final String STRATUM_SAMPLE_ROWS = "STRATUM_SAMPLE_ROWS";
+    private static final String SAMPLE_HITS = "sample_hits";
+    private static final double Z_95 = 1.96;
+    private static final double DISTINCT_RSD = 0.02;
+    private static final double SKETCH_EPS = 0.0001;
+    private static final double SKETCH_CONFIDENCE = 0.99;
+    private static final double QUANTILE_ERROR = 0.001;
+    private static final double[] QUANTILES = {0.1, 0.25, 0.5, 0.75, 0.9};
+    private static final int TOP_CLIENTS = 100;
+    private static final Logger LOGGER = Logger.getLogger(ApproximateMode.class);
+
+    private final Dataset<Row> sample;
+    private final long rows;
+    private final long distinctClients;
+    private final CountMinSketch clientSketch;
+    private final double[] incomeQuantiles;
+
+    private ApproximateMode(Dataset<Row> sample, long rows, long distinctClients, CountMinSketch clientSketch,
+                            double[] incomeQuantiles) {
+        this.sample = sample;
+        this.rows = rows;
+        this.distinctClients = distinctClients;
+        this.clientSketch = clientSketch;
+        this.incomeQuantiles = incomeQuantiles;
+    }
+
+    /**
+     * Draws the stratified sample of a view and builds the sketches over its HS_CPF column. This scans the view
+     * three times, so the view should be cached first.
+     *
+     * @param sparkSession   the spark session
+     * @param view           the view to sample, usually pessoas
+     * @param fraction       the fraction of each income band to sample
+     * @param minStratumRows the minimum number of rows sampled from each income band
+     * @param seed           the seed of the sample and sketches
+     * @return the approximate mode, whose sample must be registered as {@link #SAMPLE_VIEW}
+     * @throws IllegalArgumentException if the fraction is not in (0, 1]
+     */
+    public static ApproximateMode prepare(SparkSession sparkSession, String view, double fraction,
+                                          long minStratumRows, long seed) {
+        if (fraction <= 0 || fraction > 1) {
+            throw new IllegalArgumentException("Sample fraction must be in (0, 1], got " + fraction);
+        }
+        Dataset<Row> stratified = sparkSession.table(view).withColumn(STRATUM, ResultCube.incomeBand());
+
+        // One pass for the band sizes and, in the rolled up row, the distinct clients and income quantiles of the
+        // whole view
+        Column quantiles = expr("percentile_approx(ESTIMATIVARENDA, array(" + joinDoubles(QUANTILES) + "), "
+                                        + (int) Math.ceil(1 / QUANTILE_ERROR) + ")");
+        Map<Integer, Long> stratumRows = new TreeMap<>();
+        long distinctClients = 0;
+        double[] incomeQuantiles = new double[QUANTILES.length];
+        for (Row row : stratified.rollup(col(STRATUM))
+                                 .agg(count(lit(1)), approx_count_distinct(SourceTable.KEY, DISTINCT_RSD),
+                                      quantiles, grouping_id(col(STRATUM)))
+                                 .collectAsList()) {
+            // grouping_id is an int up to Spark 2.x and a long from Spark 3
+            if (((Number) row.get(4)).intValue() == 0) {
+                stratumRows.put(row.getInt(0), row.getLong(1));
+            } else {
+                distinctClients = row.getLong(2);
+                List<Number> incomes = row.isNullAt(3) ? null : row.<Number>getList(3);
+                for (int i = 0; i < incomeQuantiles.length; i++) {
+                    incomeQuantiles[i] = incomes == null ? Double.NaN : incomes.get(i).doubleValue();
+                }
+            }
+        }
+
+        Map<Integer, Double> fractions = new TreeMap<>();
+        Column stratumSize = null;
+        long rows = 0;
+        for (Map.Entry<Integer, Long> entry : stratumRows.entrySet()) {
+            fractions.put(entry.getKey(), Math.min(1.0, Math.max(fraction, (double) minStratumRows / entry.getValue())));
+            Column equal = col(STRATUM).equalTo(entry.getKey());
+            stratumSize = stratumSize == null ? when(equal, entry.getValue()) : stratumSize.when(equal, entry.getValue());
+            rows += entry.getValue();
+        }
+        LOGGER.info("Sampling " + view + " with fractions " + fractions + " of its income bands " + stratumRows);
+
+        CountMinSketch clientSketch = sparkSession.table(view).stat()
+                                                  .countMinSketch(SourceTable.KEY, SKETCH_EPS, SKETCH_CONFIDENCE,
+                                                                  (int) seed);
+        Dataset<Row> sample = stratified.stat()
+                                        .sampleBy(STRATUM, fractions, seed)
+                                        .withColumn(STRATUM_ROWS, stratumSize == null ? lit(0L) : stratumSize)
+                                        .withColumn(STRATUM_SAMPLE_ROWS,
+                                                    count(lit(1)).over(Window.partitionBy(col(STRATUM))));
+        return new ApproximateMode(sample, rows, distinctClients, clientSketch, incomeQuantiles);
+    }
+
+    public Dataset<Row> getSample() {
+        return sample;
+    }
+
+    /**
+     * Gets the exact number of rows of the sampled view.
+     *
+     * @return the number of rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Estimates the number of proposals of a client from the count-min sketch. The estimate never undercounts,
+     * and overcounts by at most {@link #proposalsErrorBound()} with 99% confidence.
+     *
+     * @param cpf the HS_CPF of the client
+     * @return the estimated number of proposals
+     */
+    public long proposalsOf(String cpf) {
+        return clientSketch.estimateCount(cpf);
+    }
+
+    /**
+     * Gets the maximum overcount of {@link #proposalsOf(String)}.
+     *
+     * @return the error bound
+     */
+    public long proposalsErrorBound() {
+        return (long) Math.ceil(clientSketch.relativeError() * clientSketch.totalCount());
+    }
+
+    /**
+     * Registry of the approximate analyses, named like the exact analyses they approximate prefixed with
+     * {@link #PREFIX}.
+     *
+     * @param idhBucketWidth the width of each IDH bucket of exercise6
+     * @return the analyses
+     */
+    public Map<String, Analysis> analyses(double idhBucketWidth) {
+        Map<String, Analysis> analyses = new LinkedHashMap<>();
+        analyses.put(PREFIX + "exercise1", sparkSession -> estimateCount(sparkSession, lit(true), "ORIENTACAO_SEXUAL"));
+        analyses.put(PREFIX + "exercise3", sparkSession -> estimateCount(sparkSession, col("ESTIMATIVARENDA").gt(10000)));
+        analyses.put(PREFIX + "exercise4", sparkSession -> estimateCount(sparkSession, col("BOLSAFAMILIA").equalTo(1)));
+        analyses.put(PREFIX + "exercise5", this::publicWorkerPercentage);
+        analyses.put(PREFIX + "exercise6", sparkSession -> percentagePerIDH(sparkSession, idhBucketWidth));
+        analyses.put(PREFIX + "exercise7", sparkSession -> estimateCount(sparkSession, col("DISTZONARISCO").lt(5)
+                .and(col("ESTIMATIVARENDA").gt(7000))));
+        analyses.put(PREFIX + "exercise8", sparkSession -> estimateCount(sparkSession, col("ESTIMATIVARENDA").gt(5000),
+                                                                "SOCIOEMPRESA", "TARGET"));
+        analyses.put(PREFIX + "clients", this::clients);
+        analyses.put(PREFIX + "incomeQuantiles", this::incomeQuantiles);
+        return analyses;
+    }
+
+    /**
+     * Estimates the number of rows of the sampled view satisfying a predicate, from the {@link #SAMPLE_VIEW}.
+     *
+     * @param sparkSession the spark session
+     * @param predicate    the predicate
+     * @param groupBy      the columns to group by
+     * @return one row per group, with the groupBy columns, the {@link #ESTIMATE}, its {@link #ERROR_BOUND} and the
+     * number of sampled rows it is based on
+     */
+    public static Dataset<Row> estimateCount(SparkSession sparkSession, Column predicate, String... groupBy) {
+        return estimateCount(sparkSession.table(SAMPLE_VIEW), predicate, groupBy);
+    }
+
+    /**
+     * Estimates the number of rows satisfying a predicate from a projection of the sample.
+     *
+     * Within each band the rows satisfying the predicate are a proportion p of the n sampled rows, so the band
+     * contributes N * p rows with variance N^2 * (1 - n / N) * p * (1 - p) / (n - 1), N being the rows of the band.
+     * Groups without any sampled row are missing from the result.
+     *
+     * @param sample    the sample, or a projection of it keeping the stratum columns
+     * @param predicate the predicate
+     * @param groupBy   the columns to group by
+     * @return one row per group, with the groupBy columns, the estimate, its error bound and the sampled rows
+     */
+    static Dataset<Row> estimateCount(Dataset<Row> sample, Column predicate, String... groupBy) {
+        List<Column> groupColumns = new ArrayList<>();
+        for (String column : groupBy) {
+            groupColumns.add(col(column));
+        }
+        List<Column> stratumColumns = new ArrayList<>(groupColumns);
+        stratumColumns.add(col(STRATUM));
+
+        Column total = col(STRATUM_ROWS);
+        Column sampled = col(STRATUM_SAMPLE_ROWS);
+        Column proportion = col(SAMPLE_HITS).divide(sampled);
+        Column variance = total.multiply(total)
+                               .multiply(lit(1).minus(sampled.divide(total)))
+                               .multiply(proportion)
+                               .multiply(lit(1).minus(proportion))
+                               .divide(greatest(sampled.minus(1), lit(1)));
+
+        return sample.filter(predicate)
+                     .groupBy(stratumColumns.toArray(new Column[0]))
+                     .agg(count(lit(1)).as(SAMPLE_HITS), first(STRATUM_ROWS).as(STRATUM_ROWS),
+                          first(STRATUM_SAMPLE_ROWS).as(STRATUM_SAMPLE_ROWS))
+                     .groupBy(groupColumns.toArray(new Column[0]))
+                     .agg(coalesce(round(sum(total.multiply(proportion))), lit(0)).cast("long").as(ESTIMATE),
+                          coalesce(sqrt(sum(variance)), lit(0)).multiply(Z_95).as(ERROR_BOUND),
+                          coalesce(sum(SAMPLE_HITS), lit(0)).as(SAMPLE_HITS));
+    }
+
+    private Dataset<Row> publicWorkerPercentage(SparkSession sparkSession) {
+        return estimateCount(sparkSession, col("FUNCIONARIOPUBLICOCASA").equalTo(1))
+                .select(lit(rows).as("total"), col(ESTIMATE).as("public_workers"),
+                        col(ESTIMATE).multiply(100.0 / rows).as("percentage"),
+                        col(ERROR_BOUND).multiply(100.0 / rows).as("percentage_error_bound"));
+    }
+
+    private Dataset<Row> percentagePerIDH(SparkSession sparkSession, double bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("IDH bucket width must be positive, got " + bucketWidth);
+        }
+        Dataset<Row> buckets = sparkSession.table(SAMPLE_VIEW)
+                                           .withColumn("bucket", floor(col("IDHMUNICIPIO").divide(bucketWidth)));
+        return estimateCount(buckets, lit(true), "bucket")
+                .select(col("bucket").multiply(bucketWidth).as("bucketStart"),
+                        col("bucket").plus(1).multiply(bucketWidth).as("bucketEnd"),
+                        col(ESTIMATE).as("total"),
+                        col(ESTIMATE).multiply(100.0 / rows).as("percentage"),
+                        col(ERROR_BOUND).multiply(100.0 / rows).as("percentage_error_bound"))
+                .orderBy("bucketStart");
+    }
+
+    /**
+     * The distinct clients and the most proposals of a client, taking as candidates the clients sampled most often.
+     * A client with many proposals is likely to be among them, but the maximum is a lower bound.
+     */
+    private Dataset<Row> clients(SparkSession sparkSession) {
+        long maxProposals = 0;
+        for (Row row : sparkSession.table(SAMPLE_VIEW)
+                                   .groupBy(SourceTable.KEY)
+                                   .count()
+                                   .orderBy(col("count").desc())
+                                   .limit(TOP_CLIENTS)
+                                   .collectAsList()) {
+            maxProposals = Math.max(maxProposals, proposalsOf(row.getString(0)));
+        }
+        StructType schema = new StructType().add("proposals", DataTypes.LongType)
+                                            .add("distinct_clients", DataTypes.LongType)
+                                            .add("distinct_clients_error_bound", DataTypes.DoubleType)
+                                            .add("max_proposals_per_client", DataTypes.LongType)
+                                            .add("max_proposals_error_bound", DataTypes.LongType);
+        Row row = RowFactory.create(rows, distinctClients, Z_95 * DISTINCT_RSD * distinctClients, maxProposals,
+                                    proposalsErrorBound());
+        return sparkSession.createDataFrame(Arrays.asList(row), schema);
+    }
+
+    /**
+     * The income quartiles and deciles. The stratified sample over represents high incomes, so the quantiles are
+     * sketched over the whole sampled view while preparing; the rank of each value is within the rank error.
+     */
+    private Dataset<Row> incomeQuantiles(SparkSession sparkSession) {
+        List<Row> quantiles = new ArrayList<>();
+        for (int i = 0; i < QUANTILES.length; i++) {
+            quantiles.add(RowFactory.create(QUANTILES[i], incomeQuantiles[i], (long) Math.ceil(QUANTILE_ERROR * rows)));
+        }
+        StructType schema = new StructType().add("probability", DataTypes.DoubleType)
+                                            .add("ESTIMATIVARENDA", DataTypes.DoubleType)
+                                            .add("rank_error", DataTypes.LongType);
+        return sparkSession.createDataFrame(quantiles, schema);
+    }
+
+    private static String joinDoubles(double[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (double value : values) {
+            joined.append(joined.length() == 0 ? "" : ", ").append(value);
+        }
+        return joined.toString();
+    }
+}
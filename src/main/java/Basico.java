@@ -0,0 +1,130 @@
+/**
+ * A row of the ommlbd_basico table, see {@link SourceTable#BASICO}. Its properties are named like the columns, so it can
+ * be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class Basico {
+
+    // The column names, so queries referring to them are checked by the compiler. Each one is looked up in the
+    // table schema, so a name the schema does not have fails when the class is first used
+    public static final String HS_CPF = SourceTable.BASICO.column("HS_CPF");
+    public static final String TARGET = SourceTable.BASICO.column("TARGET");
+    public static final String ORIENTACAO_SEXUAL = SourceTable.BASICO.column("ORIENTACAO_SEXUAL");
+    public static final String TEMPOCPF = SourceTable.BASICO.column("TEMPOCPF");
+    public static final String DISTCENTROCIDADE = SourceTable.BASICO.column("DISTCENTROCIDADE");
+    public static final String DISTZONARISCO = SourceTable.BASICO.column("DISTZONARISCO");
+    public static final String QTDENDERECO = SourceTable.BASICO.column("QTDENDERECO");
+    public static final String QTDEMAIL = SourceTable.BASICO.column("QTDEMAIL");
+    public static final String QTDCELULAR = SourceTable.BASICO.column("QTDCELULAR");
+    public static final String CELULARPROCON = SourceTable.BASICO.column("CELULARPROCON");
+    public static final String QTDFONEFIXO = SourceTable.BASICO.column("QTDFONEFIXO");
+    public static final String TELFIXOPROCON = SourceTable.BASICO.column("TELFIXOPROCON");
+
+    private String hs_cpf;
+    private Double target;
+    private String orientacao_sexual;
+    private Integer tempocpf;
+    private Double distcentrocidade;
+    private Double distzonarisco;
+    private Integer qtdendereco;
+    private Integer qtdemail;
+    private Integer qtdcelular;
+    private Integer celularprocon;
+    private Integer qtdfonefixo;
+    private Integer telfixoprocon;
+
+    public String getHS_CPF() {
+        return hs_cpf;
+    }
+
+    public void setHS_CPF(String hs_cpf) {
+        this.hs_cpf = hs_cpf;
+    }
+
+    public Double getTARGET() {
+        return target;
+    }
+
+    public void setTARGET(Double target) {
+        this.target = target;
+    }
+
+    public String getORIENTACAO_SEXUAL() {
+        return orientacao_sexual;
+    }
+
+    public void setORIENTACAO_SEXUAL(String orientacao_sexual) {
+        this.orientacao_sexual = orientacao_sexual;
+    }
+
+    public Integer getTEMPOCPF() {
+        return tempocpf;
+    }
+
+    public void setTEMPOCPF(Integer tempocpf) {
+        this.tempocpf = tempocpf;
+    }
+
+    public Double getDISTCENTROCIDADE() {
+        return distcentrocidade;
+    }
+
+    public void setDISTCENTROCIDADE(Double distcentrocidade) {
+        this.distcentrocidade = distcentrocidade;
+    }
+
+    public Double getDISTZONARISCO() {
+        return distzonarisco;
+    }
+
+    public void setDISTZONARISCO(Double distzonarisco) {
+        this.distzonarisco = distzonarisco;
+    }
+
+    public Integer getQTDENDERECO() {
+        return qtdendereco;
+    }
+
+    public void setQTDENDERECO(Integer qtdendereco) {
+        this.qtdendereco = qtdendereco;
+    }
+
+    public Integer getQTDEMAIL() {
+        return qtdemail;
+    }
+
+    public void setQTDEMAIL(Integer qtdemail) {
+        this.qtdemail = qtdemail;
+    }
+
+    public Integer getQTDCELULAR() {
+        return qtdcelular;
+    }
+
+    public void setQTDCELULAR(Integer qtdcelular) {
+        this.qtdcelular = qtdcelular;
+    }
+
+    public Integer getCELULARPROCON() {
+        return celularprocon;
+    }
+
+    public void setCELULARPROCON(Integer celularprocon) {
+        this.celularprocon = celularprocon;
+    }
+
+    public Integer getQTDFONEFIXO() {
+        return qtdfonefixo;
+    }
+
+    public void setQTDFONEFIXO(Integer qtdfonefixo) {
+        this.qtdfonefixo = qtdfonefixo;
+    }
+
+    public Integer getTELFIXOPROCON() {
+        return telfixoprocon;
+    }
+
+    public void setTELFIXOPROCON(Integer telfixoprocon) {
+        this.telfixoprocon = telfixoprocon;
+    }
+}
@@ -0,0 +1,63 @@
+import org.apache.spark.sql.Column;
+
+import static org.apache.spark.sql.functions.expr;
+
+/**
+ * A data quality rule on one column: rows that do not satisfy the predicate are rejected with the reason code.
+ *
+ * The rule belongs to the source table that declares its column, so it can be applied before the join.
+ */
+public class CleanupRule {
+
+    private final String reason;
+    private final String column;
+    private final String predicate;
+
+    /**
+     * Instantiates a new Cleanup rule.
+     *
+     * @param reason    the reason code recorded for rejected rows
+     * @param column    the column checked by the rule
+     * @param predicate the SQL predicate kept rows satisfy
+     */
+    public CleanupRule(String reason, String column, String predicate) {
+        this.reason = reason;
+        this.column = column;
+        this.predicate = predicate;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Gets the source table that declares the column of the rule.
+     *
+     * @return the owning table
+     */
+    public SourceTable getTable() {
+        return SchemaRegistry.tableOf(column);
+    }
+
+    /**
+     * Gets the predicate as a column.
+     *
+     * @return the predicate, which evaluates to null for rows whose column is null
+     */
+    public Column toColumn() {
+        return expr(predicate);
+    }
+
+    @Override
+    public String toString() {
+        return reason + ": " + predicate;
+    }
+}
@@ -0,0 +1,114 @@
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * The rules cleaning up the errors found in the source tables.
+ *
+ * Each rule is applied to the table owning its column, before the join, and rejected rows are tagged with the
+ * reason code of the first rule they fail.
+ */
+public final class CleanupRules {
+
+    /**
+     * The rules, in the order their reason is reported.
+     */
+    public static final List<CleanupRule> RULES = Collections.unmodifiableList(Arrays.asList(
+            new CleanupRule("QTDEMAIL_NOT_POSITIVE", "QTDEMAIL", "QTDEMAIL > 0"),
+            new CleanupRule("ESTIMATIVARENDA_NOT_POSITIVE", "ESTIMATIVARENDA", "ESTIMATIVARENDA > 0"),
+            new CleanupRule("QTDDECLARACAO10_NOT_POSITIVE", "QTDDECLARACAO10", "QTDDECLARACAO10 > 0"),
+            new CleanupRule("QTDDECLARACAOREST10_NOT_POSITIVE", "QTDDECLARACAOREST10", "QTDDECLARACAOREST10 > 0"),
+            new CleanupRule("QTDDECLARACAOPAGAR10_NOT_POSITIVE", "QTDDECLARACAOPAGAR10", "QTDDECLARACAOPAGAR10 > 0"),
+            new CleanupRule("ANOSULTIMARESTITUICAO_NOT_POSITIVE", "ANOSULTIMARESTITUICAO", "ANOSULTIMARESTITUICAO > 0"),
+            new CleanupRule("ANOSULTIMADECLARACAO_NOT_POSITIVE", "ANOSULTIMADECLARACAO", "ANOSULTIMADECLARACAO > 0"),
+            new CleanupRule("ANOSULTIMADECLARACAOPAGAR_NOT_POSITIVE", "ANOSULTIMADECLARACAOPAGAR",
+                            "ANOSULTIMADECLARACAOPAGAR > 0"),
+            new CleanupRule("BOLSAFAMILIA_NOT_BOOLEAN", "BOLSAFAMILIA", "BOLSAFAMILIA IN (0,1)"),
+            new CleanupRule("FUNCIONARIOPUBLICOCASA_NOT_BOOLEAN", "FUNCIONARIOPUBLICOCASA",
+                            "FUNCIONARIOPUBLICOCASA IN (0,1)"),
+            new CleanupRule("IDHMUNICIPIO_OUT_OF_RANGE", "IDHMUNICIPIO", "IDHMUNICIPIO > 0 AND IDHMUNICIPIO < 100"),
+            new CleanupRule("DISTZONARISCO_NOT_POSITIVE", "DISTZONARISCO", "DISTZONARISCO > 0")));
+
+    /**
+     * The column holding the reason a row was rejected.
+     */
+    public static final String REASON = "REASON";
+
+    /**
+     * The column holding the source table of a rejected row.
+     */
+    public static final String SOURCE = "SOURCE";
+
+    private CleanupRules() {
+    }
+
+    /**
+     * Gets the rules owned by a source table.
+     *
+     * @param table the source table
+     * @return the rules checking its columns
+     */
+    public static List<CleanupRule> rulesFor(SourceTable table) {
+        List<CleanupRule> rules = new ArrayList<>();
+        for (CleanupRule rule : RULES) {
+            if (rule.getTable() == table) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Keeps the rows satisfying every rule. The rules are combined into one predicate, which Parquet scans can
+     * push down.
+     *
+     * @param dataset the dataset
+     * @param rules   the rules
+     * @return the accepted rows
+     */
+    public static Dataset<Row> accept(Dataset<Row> dataset, List<CleanupRule> rules) {
+        if (rules.isEmpty()) {
+            return dataset;
+        }
+        Column predicate = rules.get(0).toColumn();
+        for (CleanupRule rule : rules.subList(1, rules.size())) {
+            predicate = predicate.and(rule.toColumn());
+        }
+        return dataset.filter(predicate);
+    }
+
+    /**
+     * Builds the reject reason of a row, the reason code of the first failing rule or null if the row is accepted.
+     * A predicate that evaluates to null, like a filter, rejects the row.
+     *
+     * @param rules the rules
+     * @return the reason column
+     */
+    public static Column rejectReason(List<CleanupRule> rules) {
+        Column reason = lit(null).cast("string");
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            CleanupRule rule = rules.get(i);
+            reason = when(not(coalesce(rule.toColumn(), lit(false))), rule.getReason()).otherwise(reason);
+        }
+        return reason;
+    }
+
+    /**
+     * Projects the rejected rows of a table to HS_CPF, SOURCE and REASON.
+     *
+     * @param tagged a table with a {@link #REASON} column built by {@link #rejectReason(List)}
+     * @param table  the source table
+     * @return the rejected rows
+     */
+    public static Dataset<Row> rejects(Dataset<Row> tagged, SourceTable table) {
+        return tagged.filter(col(REASON).isNotNull())
+                     .select(col(SourceTable.KEY), lit(table.fileName()).as(SOURCE), col(REASON));
+    }
+}
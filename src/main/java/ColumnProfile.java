@@ -0,0 +1,92 @@
+/**
+ * Summary statistics of a single numeric column. Its properties are named like the columns of
+ * {@link ColumnProfiler#profileDataset}, so it can be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class ColumnProfile {
+
+    private String column;
+    private Double average;
+    private Double min;
+    private Double max;
+    private long nullCount;
+    private long negativeCount;
+
+    /**
+     * Instantiates an empty Column profile, for the bean encoder.
+     */
+    public ColumnProfile() {
+    }
+
+    /**
+     * Instantiates a new Column profile.
+     *
+     * @param column        the column name
+     * @param average       the average, null when the column has no values
+     * @param min           the min value, null when the column has no values
+     * @param max           the max value, null when the column has no values
+     * @param nullCount     the number of null (or unparseable) values
+     * @param negativeCount the number of negative values
+     */
+    public ColumnProfile(String column, Double average, Double min, Double max, long nullCount, long negativeCount) {
+        this.column = column;
+        this.average = average;
+        this.min = min;
+        this.max = max;
+        this.nullCount = nullCount;
+        this.negativeCount = negativeCount;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public Double getAverage() {
+        return average;
+    }
+
+    public void setAverage(Double average) {
+        this.average = average;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public void setNullCount(long nullCount) {
+        this.nullCount = nullCount;
+    }
+
+    public long getNegativeCount() {
+        return negativeCount;
+    }
+
+    public void setNegativeCount(long negativeCount) {
+        this.negativeCount = negativeCount;
+    }
+
+    @Override
+    public String toString() {
+        return column + ": avg=" + average + " min=" + min + " max=" + max
+                + " nulls=" + nullCount + " negatives=" + negativeCount;
+    }
+}
@@ -0,0 +1,73 @@
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.SparkSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Computes avg/min/max/null-count/negative-count for many columns in a single aggregation,
+ * so profiling a view costs one Spark job instead of one job per column.
+ */
+public final class ColumnProfiler {
+
+    private ColumnProfiler() {
+    }
+
+    /**
+     * Profiles every numeric column of a view.
+     *
+     * @param sparkSession the spark session
+     * @param view         the view name
+     * @return the profile report
+     */
+    public static ProfileReport profile(SparkSession sparkSession, String view) {
+        return profile(sparkSession, view, SchemaRegistry.numericColumns());
+    }
+
+    /**
+     * Profiles the given columns of a view in one aggregation pass.
+     *
+     * @param sparkSession the spark session
+     * @param view         the view name
+     * @param columns      the columns to profile
+     * @return the profile report
+     */
+    public static ProfileReport profile(SparkSession sparkSession, String view, List<String> columns) {
+        return new ProfileReport(view, profileDataset(sparkSession, view, columns).collectAsList());
+    }
+
+    /**
+     * Builds the aggregation behind {@link #profile(SparkSession, String, List)}.
+     *
+     * Every column is cast to double so all statistics share one type. The statistics of all columns are computed
+     * by a single aggregation, whose one wide row is then stacked into one row per column.
+     *
+     * @param sparkSession the spark session
+     * @param view         the view name
+     * @param columns      the columns to profile
+     * @return one profile per column, in column order
+     */
+    public static Dataset<ColumnProfile> profileDataset(SparkSession sparkSession, String view, List<String> columns) {
+        List<Column> aggregations = new ArrayList<>(columns.size() * 5);
+        StringBuilder stack = new StringBuilder("stack(").append(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            Column value = col(columns.get(i)).cast("double");
+            aggregations.add(avg(value).as("avg_" + i));
+            aggregations.add(min(value).as("min_" + i));
+            aggregations.add(max(value).as("max_" + i));
+            aggregations.add(count(lit(1)).minus(count(value)).as("nulls_" + i));
+            aggregations.add(count(when(value.lt(0), true)).as("negatives_" + i));
+            stack.append(", '").append(columns.get(i)).append("', avg_").append(i).append(", min_").append(i)
+                 .append(", max_").append(i).append(", nulls_").append(i).append(", negatives_").append(i);
+        }
+        stack.append(") as (`column`, average, `min`, `max`, nullCount, negativeCount)");
+        return sparkSession.table(view)
+                           .agg(aggregations.get(0), aggregations.subList(1, aggregations.size()).toArray(new Column[0]))
+                           .selectExpr(stack.toString())
+                           .as(Encoders.bean(ColumnProfile.class));
+    }
+}
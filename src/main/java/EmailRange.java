@@ -0,0 +1,29 @@
+/**
+ * The min and max QTDEMAIL of the clients.
+ */
+public class EmailRange {
+
+    private Integer minQtdEmail;
+    private Integer maxQtdEmail;
+
+    public Integer getMinQtdEmail() {
+        return minQtdEmail;
+    }
+
+    public void setMinQtdEmail(Integer minQtdEmail) {
+        this.minQtdEmail = minQtdEmail;
+    }
+
+    public Integer getMaxQtdEmail() {
+        return maxQtdEmail;
+    }
+
+    public void setMaxQtdEmail(Integer maxQtdEmail) {
+        this.maxQtdEmail = maxQtdEmail;
+    }
+
+    @Override
+    public String toString() {
+        return minQtdEmail + "|" + maxQtdEmail;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * A row of the ommlbd_empresarial table, see {@link SourceTable#EMPRESARIAL}. Its properties are named like the columns, so it can
+ * be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class Empresarial {
+
+    // The column names, so queries referring to them are checked by the compiler. Each one is looked up in the
+    // table schema, so a name the schema does not have fails when the class is first used
+    public static final String HS_CPF = SourceTable.EMPRESARIAL.column("HS_CPF");
+    public static final String INDICEEMPREGO = SourceTable.EMPRESARIAL.column("INDICEEMPREGO");
+    public static final String PORTEEMPREGADOR = SourceTable.EMPRESARIAL.column("PORTEEMPREGADOR");
+    public static final String SOCIOEMPRESA = SourceTable.EMPRESARIAL.column("SOCIOEMPRESA");
+    public static final String FUNCIONARIOPUBLICO = SourceTable.EMPRESARIAL.column("FUNCIONARIOPUBLICO");
+    public static final String SEGMENTACAO = SourceTable.EMPRESARIAL.column("SEGMENTACAO");
+    public static final String SEGMENTACAOCOBRANCA = SourceTable.EMPRESARIAL.column("SEGMENTACAOCOBRANCA");
+    public static final String SEGMENTACAOECOM = SourceTable.EMPRESARIAL.column("SEGMENTACAOECOM");
+    public static final String SEGMENTACAOFIN = SourceTable.EMPRESARIAL.column("SEGMENTACAOFIN");
+    public static final String SEGMENTACAOTELECOM = SourceTable.EMPRESARIAL.column("SEGMENTACAOTELECOM");
+
+    private String hs_cpf;
+    private Double indiceemprego;
+    private Double porteempregador;
+    private Integer socioempresa;
+    private Integer funcionariopublico;
+    private Double segmentacao;
+    private Double segmentacaocobranca;
+    private Double segmentacaoecom;
+    private Double segmentacaofin;
+    private Double segmentacaotelecom;
+
+    public String getHS_CPF() {
+        return hs_cpf;
+    }
+
+    public void setHS_CPF(String hs_cpf) {
+        this.hs_cpf = hs_cpf;
+    }
+
+    public Double getINDICEEMPREGO() {
+        return indiceemprego;
+    }
+
+    public void setINDICEEMPREGO(Double indiceemprego) {
+        this.indiceemprego = indiceemprego;
+    }
+
+    public Double getPORTEEMPREGADOR() {
+        return porteempregador;
+    }
+
+    public void setPORTEEMPREGADOR(Double porteempregador) {
+        this.porteempregador = porteempregador;
+    }
+
+    public Integer getSOCIOEMPRESA() {
+        return socioempresa;
+    }
+
+    public void setSOCIOEMPRESA(Integer socioempresa) {
+        this.socioempresa = socioempresa;
+    }
+
+    public Integer getFUNCIONARIOPUBLICO() {
+        return funcionariopublico;
+    }
+
+    public void setFUNCIONARIOPUBLICO(Integer funcionariopublico) {
+        this.funcionariopublico = funcionariopublico;
+    }
+
+    public Double getSEGMENTACAO() {
+        return segmentacao;
+    }
+
+    public void setSEGMENTACAO(Double segmentacao) {
+        this.segmentacao = segmentacao;
+    }
+
+    public Double getSEGMENTACAOCOBRANCA() {
+        return segmentacaocobranca;
+    }
+
+    public void setSEGMENTACAOCOBRANCA(Double segmentacaocobranca) {
+        this.segmentacaocobranca = segmentacaocobranca;
+    }
+
+    public Double getSEGMENTACAOECOM() {
+        return segmentacaoecom;
+    }
+
+    public void setSEGMENTACAOECOM(Double segmentacaoecom) {
+        this.segmentacaoecom = segmentacaoecom;
+    }
+
+    public Double getSEGMENTACAOFIN() {
+        return segmentacaofin;
+    }
+
+    public void setSEGMENTACAOFIN(Double segmentacaofin) {
+        this.segmentacaofin = segmentacaofin;
+    }
+
+    public Double getSEGMENTACAOTELECOM() {
+        return segmentacaotelecom;
+    }
+
+    public void setSEGMENTACAOTELECOM(Double segmentacaotelecom) {
+        this.segmentacaotelecom = segmentacaotelecom;
+    }
+}
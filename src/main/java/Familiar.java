@@ -0,0 +1,180 @@
+/**
+ * A row of the ommlbd_familiar table, see {@link SourceTable#FAMILIAR}. Its properties are named like the columns, so it can
+ * be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class Familiar {
+
+    // The column names, so queries referring to them are checked by the compiler. Each one is looked up in the
+    // table schema, so a name the schema does not have fails when the class is first used
+    public static final String HS_CPF = SourceTable.FAMILIAR.column("HS_CPF");
+    public static final String QTDPESSOASCASA = SourceTable.FAMILIAR.column("QTDPESSOASCASA");
+    public static final String MENORRENDACASA = SourceTable.FAMILIAR.column("MENORRENDACASA");
+    public static final String MAIORRENDACASA = SourceTable.FAMILIAR.column("MAIORRENDACASA");
+    public static final String MEDIARENDACASA = SourceTable.FAMILIAR.column("MEDIARENDACASA");
+    public static final String MAIORIDADECASA = SourceTable.FAMILIAR.column("MAIORIDADECASA");
+    public static final String MENORIDADECASA = SourceTable.FAMILIAR.column("MENORIDADECASA");
+    public static final String MEDIAIDADECASA = SourceTable.FAMILIAR.column("MEDIAIDADECASA");
+    public static final String INDICMENORDEIDADE = SourceTable.FAMILIAR.column("INDICMENORDEIDADE");
+    public static final String COBRANCABAIXOCASA = SourceTable.FAMILIAR.column("COBRANCABAIXOCASA");
+    public static final String COBRANCAMEDIOCASA = SourceTable.FAMILIAR.column("COBRANCAMEDIOCASA");
+    public static final String COBRANCAALTACASA = SourceTable.FAMILIAR.column("COBRANCAALTACASA");
+    public static final String SEGMENTACAOFINBAIXACASA = SourceTable.FAMILIAR.column("SEGMENTACAOFINBAIXACASA");
+    public static final String SEGMENTACAOFINMEDIACASA = SourceTable.FAMILIAR.column("SEGMENTACAOFINMEDIACASA");
+    public static final String SEGMENTACAOALTACASA = SourceTable.FAMILIAR.column("SEGMENTACAOALTACASA");
+    public static final String BOLSAFAMILIACASA = SourceTable.FAMILIAR.column("BOLSAFAMILIACASA");
+    public static final String FUNCIONARIOPUBLICOCASA = SourceTable.FAMILIAR.column("FUNCIONARIOPUBLICOCASA");
+
+    private String hs_cpf;
+    private Integer qtdpessoascasa;
+    private Double menorrendacasa;
+    private Double maiorrendacasa;
+    private Double mediarendacasa;
+    private Integer maioridadecasa;
+    private Integer menoridadecasa;
+    private Double mediaidadecasa;
+    private Integer indicmenordeidade;
+    private Integer cobrancabaixocasa;
+    private Integer cobrancamediocasa;
+    private Integer cobrancaaltacasa;
+    private Integer segmentacaofinbaixacasa;
+    private Integer segmentacaofinmediacasa;
+    private Integer segmentacaoaltacasa;
+    private Integer bolsafamiliacasa;
+    private Integer funcionariopublicocasa;
+
+    public String getHS_CPF() {
+        return hs_cpf;
+    }
+
+    public void setHS_CPF(String hs_cpf) {
+        this.hs_cpf = hs_cpf;
+    }
+
+    public Integer getQTDPESSOASCASA() {
+        return qtdpessoascasa;
+    }
+
+    public void setQTDPESSOASCASA(Integer qtdpessoascasa) {
+        this.qtdpessoascasa = qtdpessoascasa;
+    }
+
+    public Double getMENORRENDACASA() {
+        return menorrendacasa;
+    }
+
+    public void setMENORRENDACASA(Double menorrendacasa) {
+        this.menorrendacasa = menorrendacasa;
+    }
+
+    public Double getMAIORRENDACASA() {
+        return maiorrendacasa;
+    }
+
+    public void setMAIORRENDACASA(Double maiorrendacasa) {
+        this.maiorrendacasa = maiorrendacasa;
+    }
+
+    public Double getMEDIARENDACASA() {
+        return mediarendacasa;
+    }
+
+    public void setMEDIARENDACASA(Double mediarendacasa) {
+        this.mediarendacasa = mediarendacasa;
+    }
+
+    public Integer getMAIORIDADECASA() {
+        return maioridadecasa;
+    }
+
+    public void setMAIORIDADECASA(Integer maioridadecasa) {
+        this.maioridadecasa = maioridadecasa;
+    }
+
+    public Integer getMENORIDADECASA() {
+        return menoridadecasa;
+    }
+
+    public void setMENORIDADECASA(Integer menoridadecasa) {
+        this.menoridadecasa = menoridadecasa;
+    }
+
+    public Double getMEDIAIDADECASA() {
+        return mediaidadecasa;
+    }
+
+    public void setMEDIAIDADECASA(Double mediaidadecasa) {
+        this.mediaidadecasa = mediaidadecasa;
+    }
+
+    public Integer getINDICMENORDEIDADE() {
+        return indicmenordeidade;
+    }
+
+    public void setINDICMENORDEIDADE(Integer indicmenordeidade) {
+        this.indicmenordeidade = indicmenordeidade;
+    }
+
+    public Integer getCOBRANCABAIXOCASA() {
+        return cobrancabaixocasa;
+    }
+
+    public void setCOBRANCABAIXOCASA(Integer cobrancabaixocasa) {
+        this.cobrancabaixocasa = cobrancabaixocasa;
+    }
+
+    public Integer getCOBRANCAMEDIOCASA() {
+        return cobrancamediocasa;
+    }
+
+    public void setCOBRANCAMEDIOCASA(Integer cobrancamediocasa) {
+        this.cobrancamediocasa = cobrancamediocasa;
+    }
+
+    public Integer getCOBRANCAALTACASA() {
+        return cobrancaaltacasa;
+    }
+
+    public void setCOBRANCAALTACASA(Integer cobrancaaltacasa) {
+        this.cobrancaaltacasa = cobrancaaltacasa;
+    }
+
+    public Integer getSEGMENTACAOFINBAIXACASA() {
+        return segmentacaofinbaixacasa;
+    }
+
+    public void setSEGMENTACAOFINBAIXACASA(Integer segmentacaofinbaixacasa) {
+        this.segmentacaofinbaixacasa = segmentacaofinbaixacasa;
+    }
+
+    public Integer getSEGMENTACAOFINMEDIACASA() {
+        return segmentacaofinmediacasa;
+    }
+
+    public void setSEGMENTACAOFINMEDIACASA(Integer segmentacaofinmediacasa) {
+        this.segmentacaofinmediacasa = segmentacaofinmediacasa;
+    }
+
+    public Integer getSEGMENTACAOALTACASA() {
+        return segmentacaoaltacasa;
+    }
+
+    public void setSEGMENTACAOALTACASA(Integer segmentacaoaltacasa) {
+        this.segmentacaoaltacasa = segmentacaoaltacasa;
+    }
+
+    public Integer getBOLSAFAMILIACASA() {
+        return bolsafamiliacasa;
+    }
+
+    public void setBOLSAFAMILIACASA(Integer bolsafamiliacasa) {
+        this.bolsafamiliacasa = bolsafamiliacasa;
+    }
+
+    public Integer getFUNCIONARIOPUBLICOCASA() {
+        return funcionariopublicocasa;
+    }
+
+    public void setFUNCIONARIOPUBLICOCASA(Integer funcionariopublicocasa) {
+        this.funcionariopublicocasa = funcionariopublicocasa;
+    }
+}
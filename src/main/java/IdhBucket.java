@@ -0,0 +1,47 @@
+/**
+ * The clients whose IDHMUNICIPIO is in [bucketStart, bucketEnd), with their percentage of every client.
+ */
+public class IdhBucket {
+
+    private double bucketStart;
+    private double bucketEnd;
+    private long total;
+    private double percentage;
+
+    public double getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(double bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public double getBucketEnd() {
+        return bucketEnd;
+    }
+
+    public void setBucketEnd(double bucketEnd) {
+        this.bucketEnd = bucketEnd;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+
+    public void setPercentage(double percentage) {
+        this.percentage = percentage;
+    }
+
+    @Override
+    public String toString() {
+        return bucketStart + "|" + bucketEnd + "|" + total + "|" + percentage;
+    }
+}
@@ -0,0 +1,266 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.log4j.Logger;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import scala.collection.JavaConverters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Plans the HS_CPF join of the source tables.
+ *
+ * Tables whose estimated in-memory size is below the broadcast threshold are broadcast. The size is estimated
+ * from the row counts in the Parquet footers and the default row size of the schema, because the compressed
+ * on-disk size can understate it many times over. Every other table is hash partitioned on HS_CPF into the given
+ * number of partitions, and so is the first table when at least one such join follows. This is the same plan as
+ * Spark's default sort-merge join, one exchange per partitioned table with the left side's partitioning reused by
+ * the following joins; it only fixes the number of partitions. When every other table is broadcast, the first
+ * table is not shuffled at all.
+ *
+ * With a {@link SkewDetector}, the heavy HS_CPF keys of every table are found from a sample first. Their rows
+ * are split off and joined on their own: the heavy rows of a table are broadcast when they are few enough, and
+ * salted otherwise, spreading each heavy key over several tasks. The rows of the other keys keep the
+ * co-partitioned plan, and the two joins are unioned.
+ */
+public final class JoinPlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(JoinPlanner.class);
+
+    private static final String SALT = "SALT";
+    private static final long SALT_SEED = 42;
+
+    private final int partitions;
+    private final long broadcastThresholdBytes;
+    private final SkewDetector skewDetector;
+    private final long heavyBroadcastRows;
+    private final int saltBuckets;
+    private volatile List<SkewedKey> skewedKeys = Collections.emptyList();
+
+    /**
+     * Instantiates a new Join planner that does not look for skewed keys.
+     *
+     * @param partitions              the number of HS_CPF partitions shared by the partitioned tables
+     * @param broadcastThresholdBytes the estimated in-memory size up to which a table is broadcast, negative to
+     *                                never broadcast
+     */
+    public JoinPlanner(int partitions, long broadcastThresholdBytes) {
+        this(partitions, broadcastThresholdBytes, null, 0, 1);
+    }
+
+    /**
+     * Instantiates a new Join planner.
+     *
+     * @param partitions              the number of HS_CPF partitions shared by the partitioned tables
+     * @param broadcastThresholdBytes the estimated in-memory size up to which a table is broadcast, negative to
+     *                                never broadcast
+     * @param skewDetector            the detector of heavy keys, null to join every key the same way
+     * @param heavyBroadcastRows      the estimated heavy rows of a table up to which they are broadcast
+     * @param saltBuckets             the number of tasks each heavy key is spread over when salted
+     */
+    public JoinPlanner(int partitions, long broadcastThresholdBytes, SkewDetector skewDetector, long heavyBroadcastRows,
+                       int saltBuckets) {
+        this.partitions = partitions;
+        this.broadcastThresholdBytes = broadcastThresholdBytes;
+        this.skewDetector = skewDetector;
+        this.heavyBroadcastRows = heavyBroadcastRows;
+        this.saltBuckets = saltBuckets;
+    }
+
+    /**
+     * Gets the skewed keys found by the last join.
+     *
+     * @return the skewed keys of every table, empty when there are none or skew is not detected
+     */
+    public List<SkewedKey> getSkewedKeys() {
+        return skewedKeys;
+    }
+
+    /**
+     * Joins the converted source tables using the HS_CPF field.
+     *
+     * @param sparkSession the spark session
+     * @param outputDir    the directory the Parquet tables were written to
+     * @return the raw, uncleaned join of every source table
+     * @throws IOException if the table sizes cannot be read
+     */
+    public Dataset<Row> join(SparkSession sparkSession, String outputDir) throws IOException {
+        Map<SourceTable, Dataset<Row>> tables = new EnumMap<>(SourceTable.class);
+        for (SourceTable table : SourceTable.values()) {
+            tables.put(table, ParquetIngest.read(sparkSession, outputDir, table));
+        }
+        return join(sparkSession, outputDir, tables);
+    }
+
+    /**
+     * Joins datasets derived from the converted source tables using the HS_CPF field.
+     *
+     * The estimated size of each converted table decides whether its dataset is broadcast, so datasets that
+     * filter their table are sized by their upper bound.
+     *
+     * @param sparkSession the spark session
+     * @param outputDir    the directory the Parquet tables were written to
+     * @param tables       the dataset to join for every source table
+     * @return the join of the datasets
+     * @throws IOException if the table sizes cannot be read
+     */
+    public Dataset<Row> join(SparkSession sparkSession, String outputDir, Map<SourceTable, Dataset<Row>> tables)
+            throws IOException {
+        Configuration conf = sparkSession.sparkContext().hadoopConfiguration();
+        Map<SourceTable, Long> sizes = new EnumMap<>(SourceTable.class);
+        for (SourceTable table : SourceTable.values()) {
+            sizes.put(table, inMemorySize(new Path(outputDir, table.fileName()), table, conf));
+        }
+
+        List<SkewedKey> keys = new ArrayList<>();
+        Map<SourceTable, Long> heavyRows = new EnumMap<>(SourceTable.class);
+        if (skewDetector != null) {
+            for (SourceTable table : SourceTable.values()) {
+                long rows = 0;
+                for (SkewedKey key : skewDetector.detect(tables.get(table), table, partitions)) {
+                    LOGGER.warn("Skewed key in " + key);
+                    keys.add(key);
+                    rows += key.getEstimatedRows();
+                }
+                heavyRows.put(table, rows);
+            }
+        }
+        skewedKeys = Collections.unmodifiableList(keys);
+        if (keys.isEmpty()) {
+            return joinPartitioned(tables, sizes);
+        }
+
+        Set<String> heavyKeys = new TreeSet<>();
+        for (SkewedKey key : keys) {
+            heavyKeys.add(key.getKey());
+        }
+        Column heavy = col(SourceTable.KEY).isin(heavyKeys.toArray());
+        Map<SourceTable, Dataset<Row>> light = new EnumMap<>(SourceTable.class);
+        Map<SourceTable, Dataset<Row>> heavies = new EnumMap<>(SourceTable.class);
+        for (SourceTable table : SourceTable.values()) {
+            light.put(table, tables.get(table).filter(not(heavy)));
+            heavies.put(table, tables.get(table).filter(heavy));
+        }
+        LOGGER.info("Joining the " + heavyKeys.size() + " skewed keys apart from the others");
+        return joinPartitioned(light, sizes).union(joinHeavy(heavies, sizes, heavyRows));
+    }
+
+    /**
+     * Estimates the in-memory size of a converted table as its row count, read from the Parquet footers without
+     * scanning the data, times the default size of a row of its schema.
+     */
+    private static long inMemorySize(Path path, SourceTable table, Configuration conf) throws IOException {
+        long rows = 0;
+        RemoteIterator<LocatedFileStatus> files = path.getFileSystem(conf).listFiles(path, true);
+        while (files.hasNext()) {
+            LocatedFileStatus file = files.next();
+            if (file.getPath().getName().endsWith(".parquet")) {
+                for (BlockMetaData block : ParquetFileReader.readFooter(conf, file, ParquetMetadataConverter.NO_FILTER)
+                                                            .getBlocks()) {
+                    rows += block.getRowCount();
+                }
+            }
+        }
+        return rows * table.schema().defaultSize();
+    }
+
+    private Dataset<Row> joinPartitioned(Map<SourceTable, Dataset<Row>> tables, Map<SourceTable, Long> sizes) {
+        // The first table is only worth partitioning when a partitioned join reuses it, a broadcast join does not
+        boolean partitioned = false;
+        for (SourceTable table : SourceTable.values()) {
+            partitioned |= table != SourceTable.values()[0] && sizes.get(table) > broadcastThresholdBytes;
+        }
+
+        Dataset<Row> joined = null;
+        for (SourceTable table : SourceTable.values()) {
+            Dataset<Row> dataset = tables.get(table);
+            if (joined == null) {
+                joined = partitioned ? dataset.repartition(partitions, col(SourceTable.KEY)) : dataset;
+                continue;
+            }
+
+            long size = sizes.get(table);
+            if (size <= broadcastThresholdBytes) {
+                LOGGER.info("Broadcasting " + table.fileName() + " (" + size + " bytes in memory)");
+                joined = joined.join(broadcast(dataset), SourceTable.KEY);
+            } else {
+                LOGGER.info("Partitioning " + table.fileName() + " (" + size + " bytes in memory) into " + partitions
+                                    + " partitions");
+                joined = joined.join(dataset.repartition(partitions, col(SourceTable.KEY)), SourceTable.KEY);
+            }
+        }
+        return joined;
+    }
+
+    /**
+     * Joins the rows of the heavy keys. The joined rows are salted with a random bucket and the heavy rows of
+     * each table are replicated into every bucket, so a key that holds many rows on either side is split over
+     * several tasks instead of one.
+     */
+    private Dataset<Row> joinHeavy(Map<SourceTable, Dataset<Row>> tables, Map<SourceTable, Long> sizes,
+                                   Map<SourceTable, Long> heavyRows) {
+        List<Column> salts = new ArrayList<>();
+        for (int salt = 0; salt < saltBuckets; salt++) {
+            salts.add(lit(salt));
+        }
+        List<String> saltedKey = Arrays.asList(SourceTable.KEY, SALT);
+
+        Dataset<Row> joined = null;
+        for (SourceTable table : SourceTable.values()) {
+            Dataset<Row> dataset = tables.get(table);
+            if (joined == null) {
+                joined = dataset;
+            } else if (sizes.get(table) <= broadcastThresholdBytes || heavyRows.get(table) <= heavyBroadcastRows) {
+                LOGGER.info("Broadcasting the skewed keys of " + table.fileName() + " (~" + heavyRows.get(table)
+                                    + " rows)");
+                joined = joined.join(broadcast(dataset), SourceTable.KEY);
+            } else {
+                LOGGER.info("Salting the skewed keys of " + table.fileName() + " (~" + heavyRows.get(table)
+                                    + " rows) into " + saltBuckets + " buckets");
+                joined = joined.withColumn(SALT, floor(rand(SALT_SEED).multiply(saltBuckets)).cast("int"))
+                               .join(dataset.withColumn(SALT, explode(array(salts.toArray(new Column[0])))),
+                                     JavaConverters.asScalaBufferConverter(saltedKey).asScala())
+                               .drop(SALT);
+            }
+        }
+        return joined;
+    }
+
+    /**
+     * Logs the physical plan of a dataset together with its number of shuffle exchanges.
+     *
+     * The shuffled bytes themselves are logged per stage and job by {@link StageMetricsListener}.
+     *
+     * @param dataset the dataset
+     */
+    public static void explain(Dataset<Row> dataset) {
+        String plan = dataset.queryExecution().executedPlan().toString();
+        int exchanges = occurrences(plan, "Exchange ") - occurrences(plan, "BroadcastExchange ");
+        LOGGER.info("Physical plan with " + exchanges + " shuffle exchanges:\n" + plan);
+    }
+
+    private static int occurrences(String text, String token) {
+        int count = 0;
+        for (int index = text.indexOf(token); index >= 0; index = text.indexOf(token, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -1,71 +1,190 @@
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.spark.sql.*;
+import org.apache.spark.sql.streaming.StreamingQueryException;
+import org.apache.spark.storage.StorageLevel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.spark.sql.functions.col;
 
 /**
  * The type Main.
  */
 public class Main {
 
+    /**
+     * The default width of each IDH bucket of exercise6.
+     */
+    static final double IDH_BUCKET_WIDTH = 10;
+
     /**
      * The entry point of application.
      *
-     * @param args the input arguments
-     * @throws AnalysisException the analysis exception
+     * @param args the names of the analyses to run, see {@link #analyses()}, and --key=value settings, see
+     *             {@link AppConfig}
+     * @throws AnalysisException       the analysis exception
+     * @throws IOException             if the settings, the Parquet ingest or the report fails
+     * @throws InterruptedException    if interrupted while waiting for the analyses
+     * @throws StreamingQueryException if a streaming query fails
      */
-    public static void main(String[] args) throws AnalysisException {
+    public static void main(String[] args)
+            throws AnalysisException, IOException, InterruptedException, StreamingQueryException {
 
         Logger.getLogger("org.apache").setLevel(Level.WARN);
 
-        SparkSession sparkSession = SparkSession.builder()
-                                                .appName("bank-analysis-spark-sql")
-                                                .master("local[*]")
-                                                .getOrCreate();
-
-        Dataset<Row> basic = sparkSession.read().option("header", true).csv("files/ommlbd_basico.csv");
-        Dataset<Row> empresarial = sparkSession.read().option("header", true).csv("files/ommlbd_empresarial.csv");
-        Dataset<Row> familiar = sparkSession.read().option("header", true).csv("files/ommlbd_familiar.csv");
-        Dataset<Row> regional = sparkSession.read().option("header", true).csv("files/ommlbd_regional.csv");
-        Dataset<Row> renda = sparkSession.read().option("header", true).csv("files/ommlbd_renda.csv");
-
-        // Joining the tables using the HS_CPF field
-        Dataset<Row> rawDataset = basic
-                .join(empresarial, "HS_CPF")
-                .join(familiar, "HS_CPF")
-                .join(regional, "HS_CPF")
-                .join(renda, "HS_CPF");
-
-        rawDataset.createTempView("raw_pessoas");
-
-        // sanityCheck(sparkSession);
-
-        Dataset<Row> dataset = cleanUp(rawDataset);
-        dataset.createTempView("pessoas");
-
-        // Exercício 1
-        // numberOfClientsByGenderOrientation(sparkSession);
-
-        // Exercício 2
-        // minMaxEmails(sparkSession);
-
-        // Exercício 3
-        // numberOfProposesThatClientIncomeIsBiggerThan10000Reais(sparkSession);
-
-        // Exercício 4
-        // numberOfClientsThatAreFromBolsaFamiliaProgram(sparkSession);
-
-        // Exercício 5
-        // percentagesOfCredictWhoseClientHasAPublicWorker(sparkSession);
-
-        // Exercício 6
-        // percentagePerIDH(sparkSession);
-
-        // Exercício 7
-        // exercise7(sparkSession);
+        AppConfig config = AppConfig.load(args);
+        String parquetDir = config.get(AppConfig.PARQUET_DIR, null);
+        SparkSession sparkSession = config.sparkSession("bank-analysis-spark-sql");
+        sparkSession.sparkContext().addSparkListener(new StageMetricsListener());
+        QueryMetricsListener queryMetricsListener = new QueryMetricsListener();
+        sparkSession.sparkContext().addSparkListener(queryMetricsListener);
+
+        // Join partitions default to the shuffle partitions so the joins line up with the other shuffles
+        int partitions = config.configureShufflePartitions(sparkSession);
+        // Heavy HS_CPF keys, like placeholder CPFs, are found from a sample and joined apart, 0 disables it
+        double skewSampleFraction = config.getDouble("bank.skew.sampleFraction", 0.01);
+        SkewDetector skewDetector = skewSampleFraction > 0
+                ? new SkewDetector(skewSampleFraction, config.getLong("bank.skew.minRows", 1000L),
+                                   config.getLong("bank.skew.seed", 42L))
+                : null;
+        JoinPlanner joinPlanner = new JoinPlanner(config.getInt("bank.join.partitions", partitions),
+                                                  config.getLong("bank.join.broadcastThreshold", 10L * 1024 * 1024),
+                                                  skewDetector,
+                                                  config.getLong("bank.skew.broadcastRows", 100000L),
+                                                  config.getInt("bank.skew.saltBuckets", 16));
+
+        // Converting the CSV files to Parquet, only when they changed since the last run
+        ParquetIngest.ingest(sparkSession, config.get(AppConfig.INPUT_DIR, null), parquetDir,
+                             SchemaRegistry.ParseMode.valueOf(config.get("bank.parseMode", "PERMISSIVE")),
+                             joinPlanner);
+
+        // Streaming mode keeps the exercise aggregates up to date instead of running the report once. The CSV files
+        // are checked again between publications, and the queries rejoin the rebuilt tables when they changed
+        if ("streaming".equals(config.get("bank.mode", null))) {
+            StreamingPipeline pipeline = new StreamingPipeline(sparkSession, parquetDir,
+                                                               config.get(AppConfig.CHECKPOINT_DIR, null),
+                                                               config.get("bank.stream.output", "output/stream"),
+                                                               config.get("bank.stream.trigger", "5 seconds"));
+            try {
+                pipeline.start(config.get("bank.stream.input", "files/incoming"),
+                               config.get("bank.stream.format", "parquet"));
+                long publishInterval = config.getLong("bank.stream.publishIntervalMs", 10000L);
+                while (!sparkSession.streams().awaitAnyTermination(publishInterval)) {
+                    if (ParquetIngest.ingest(sparkSession, config.get(AppConfig.INPUT_DIR, null), parquetDir,
+                                             SchemaRegistry.ParseMode.valueOf(config.get("bank.parseMode", "PERMISSIVE")),
+                                             joinPlanner)) {
+                        pipeline.restart();
+                    }
+                    pipeline.publish();
+                }
+            } finally {
+                pipeline.stop();
+                sparkSession.stop();
+            }
+            return;
+        }
+
+        ViewCache viewCache = new ViewCache(sparkSession,
+                                            StorageLevel.fromString(config.get("bank.cache.level", "MEMORY_AND_DISK")),
+                                            config.getBoolean("bank.cache.eager", true));
+        try {
+            // Analyses to run, from the arguments or bank.report.analyses, every analysis by default
+            List<String> names = new ArrayList<>(config.getArguments());
+            if (names.isEmpty() && !config.get("bank.report.analyses", "").isEmpty()) {
+                names.addAll(Arrays.asList(config.get("bank.report.analyses", "").split(",")));
+            }
+
+            // Already joined and cleaned by the ingest
+            viewCache.register("pessoas", ParquetIngest.readPessoas(sparkSession, parquetDir));
+
+            // The raw join is only read by the sanity check, so it is only planned and cached for it, on first use
+            if (names.isEmpty() || names.contains("sanityCheck")) {
+                viewCache.register("raw_pessoas", joinPlanner.join(sparkSession, parquetDir), false);
+            }
+
+            // Pre-aggregated counts answering the recurring group-by exercises
+            if (config.getBoolean("bank.cube.enabled", true)) {
+                viewCache.register(ResultCube.VIEW, ResultCube.materialize(sparkSession, parquetDir));
+            }
+
+            double idhBucketWidth = config.getDouble("bank.idh.bucketWidth", IDH_BUCKET_WIDTH);
+            Map<String, Analysis> registry = analyses(idhBucketWidth);
+
+            // Approximate mode answers approx.* analyses from an in-memory stratified sample of pessoas, for interactive
+            // exploration
+            if (config.getBoolean("bank.approx.enabled", false)) {
+                ApproximateMode approximateMode = ApproximateMode.prepare(
+                        sparkSession, "pessoas", config.getDouble("bank.approx.fraction", 0.05),
+                        config.getLong("bank.approx.minStratumRows", 1000L), config.getLong("bank.approx.seed", 42L));
+                viewCache.register(ApproximateMode.SAMPLE_VIEW, approximateMode.getSample());
+                registry.putAll(approximateMode.analyses(idhBucketWidth));
+            }
+            ReportRunner reportRunner = new ReportRunner(sparkSession, registry,
+                                                         config.getInt("bank.report.threads", registry.size()),
+                                                         queryMetricsListener);
+            List<ReportResult> results = reportRunner.run(names);
+            reportRunner.write(results, config.get("bank.report.output", "output/report.txt"));
+
+            List<QueryMetrics> metrics = new ArrayList<>();
+            for (ReportResult result : results) {
+                metrics.add(result.getMetrics());
+            }
+            MetricsExporter.export(metrics, config.get("bank.metrics.output", "output/metrics.jsonl"),
+                                   MetricsExporter.Format.valueOf(config.get("bank.metrics.format", "JSON")),
+                                   sparkSession.sparkContext().hadoopConfiguration());
+            for (ReportResult result : results) {
+                System.out.println(result.getName() + ": " + result.getWallTimeMs() + " ms, "
+                                           + (result.isSuccessful() ? result.getRows().size() + " rows" : "FAILED"));
+            }
+            for (ReportResult result : results) {
+                if ("sanityCheck".equals(result.getName()) && result.isSuccessful()) {
+                    List<ColumnProfile> profiles = new ArrayList<>();
+                    for (Object profile : result.getRows()) {
+                        profiles.add((ColumnProfile) profile);
+                    }
+                    System.out.println(new ProfileReport("raw_pessoas", profiles));
+                }
+            }
+        } finally {
+            viewCache.close();
+            sparkSession.stop();
+        }
+    }
 
-        // Exercício 8
-        exercise8(sparkSession);
+    /**
+     * Registry of every analysis, by name, with the default IDH bucket width.
+     *
+     * @return the analyses, in exercise order
+     */
+    static Map<String, Analysis> analyses() {
+        return analyses(IDH_BUCKET_WIDTH);
+    }
 
+    /**
+     * Registry of every analysis, by name.
+     *
+     * @param idhBucketWidth the width of each IDH bucket of exercise6
+     * @return the analyses, in exercise order
+     */
+    static Map<String, Analysis> analyses(double idhBucketWidth) {
+        Map<String, Analysis> analyses = new LinkedHashMap<>();
+        analyses.put("exercise1", Main::numberOfClientsByGenderOrientation);
+        analyses.put("exercise2", Main::minMaxEmails);
+        analyses.put("exercise3", Main::numberOfProposesThatClientIncomeIsBiggerThan10000Reais);
+        analyses.put("exercise4", Main::numberOfClientsThatAreFromBolsaFamiliaProgram);
+        analyses.put("exercise5", Main::percentagesOfCredictWhoseClientHasAPublicWorker);
+        analyses.put("exercise6", sparkSession -> percentagePerIDH(sparkSession, idhBucketWidth));
+        analyses.put("exercise7", Main::exercise7);
+        analyses.put("exercise8", Main::exercise8);
+        analyses.put("sanityCheck", Main::sanityCheck);
+        return analyses;
     }
 
     /**
@@ -73,17 +192,22 @@ public class Main {
      *
      * Results:
      *
-     * |ORIENTACAO_SEXUAL|count(ORIENTACAO_SEXUAL)|
-     * +-----------------+------------------------+
-     * |           HETERO|                  379758|
-     * |              PAN|                   11002|
-     * |               BI|                   13108|
-     * |             HOMO|                   35056|
-     * +-----------------+------------------------+
+     * |orientacaoSexual| total|
+     * +----------------+------+
+     * |          HETERO|379758|
+     * |             PAN| 11002|
+     * |              BI| 13108|
+     * |            HOMO| 35056|
+     * +----------------+------+
      * */
-    private static void numberOfClientsByGenderOrientation(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT ORIENTACAO_SEXUAL, count(ORIENTACAO_SEXUAL) FROM pessoas GROUP BY ORIENTACAO_SEXUAL");
-        result.show();
+    private static Dataset<OrientationCount> numberOfClientsByGenderOrientation(SparkSession sparkSession) {
+        if (ResultCube.isAvailable(sparkSession)) {
+            return ResultCube.countNonNull(sparkSession, null, Collections.emptyMap(), "ORIENTACAO_SEXUAL",
+                                           "ORIENTACAO_SEXUAL")
+                             .select(col("ORIENTACAO_SEXUAL").as("orientacaoSexual"), col("total"))
+                             .as(Encoders.bean(OrientationCount.class));
+        }
+        return TypedAnalyses.clientsByOrientation(sparkSession.table("pessoas"));
     }
 
     /**
@@ -91,15 +215,14 @@ public class Main {
      *
      * Results:
      *
-     * |min(QTDEMAIL)|max(QTDEMAIL)|
-     * +-------------+-------------+
-     * |            1|            8|
-     * +-------------+-------------+
+     * |minQtdEmail|maxQtdEmail|
+     * +-----------+-----------+
+     * |          1|          8|
+     * +-----------+-----------+
      *
      * */
-    private static void minMaxEmails(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT MIN(QTDEMAIL), MAX(QTDEMAIL) FROM pessoas");
-        result.show();
+    private static Dataset<EmailRange> minMaxEmails(SparkSession sparkSession) {
+        return TypedAnalyses.emailRange(sparkSession.table("pessoas"));
     }
 
     /**
@@ -107,14 +230,16 @@ public class Main {
      *
      * Results:
      *
-     * |count(ESTIMATIVARENDA)|
-     * +----------------------+
-     * |                  2719|
-     * +----------------------+
+     * |total|
+     * +-----+
+     * | 2719|
+     * +-----+
     * */
-    private static void numberOfProposesThatClientIncomeIsBiggerThan10000Reais(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT count(ESTIMATIVARENDA) FROM pessoas WHERE ESTIMATIVARENDA > 10000");
-        result.show();
+    private static Dataset<Long> numberOfProposesThatClientIncomeIsBiggerThan10000Reais(SparkSession sparkSession) {
+        if (ResultCube.isAvailable(sparkSession)) {
+            return ResultCube.countBy(sparkSession, 10000.0, Collections.emptyMap()).as(Encoders.LONG());
+        }
+        return TypedAnalyses.proposalsWithIncomeAbove(sparkSession.table("pessoas"), 10000);
     }
 
     /**
@@ -122,55 +247,54 @@ public class Main {
      *
      * Results:
      *
-     |count(BOLSAFAMILIA)|
-     +-------------------+
-     |                  5|
-     +-------------------+
+     * |total|
+     * +-----+
+     * |    5|
+     * +-----+
      * */
-    private static void numberOfClientsThatAreFromBolsaFamiliaProgram(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT count(BOLSAFAMILIA) FROM pessoas WHERE BOLSAFAMILIA = 1");
-        result.show();
+    private static Dataset<Long> numberOfClientsThatAreFromBolsaFamiliaProgram(SparkSession sparkSession) {
+        if (ResultCube.isAvailable(sparkSession)) {
+            return ResultCube.countBy(sparkSession, null, Collections.singletonMap("BOLSAFAMILIA", 1))
+                             .as(Encoders.LONG());
+        }
+        return TypedAnalyses.bolsaFamiliaClients(sparkSession.table("pessoas"));
     }
 
     /**
-    * Results:
-    *
-    * 48,41%
-    * */
-    private static void percentagesOfCredictWhoseClientHasAPublicWorker(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT count(FUNCIONARIOPUBLICOCASA) as total FROM pessoas");
-        result.show();
-        Dataset<Row> resultSet = sparkSession.sql("SELECT count(FUNCIONARIOPUBLICOCASA) as total FROM pessoas WHERE FUNCIONARIOPUBLICOCASA = 1");
-        resultSet.show();
+     * Percentage of proposals whose client lives with a public worker, in a single scan
+     *
+     * Results:
+     *
+     * 48,41%
+     * */
+    private static Dataset<PublicWorkerShare> percentagesOfCredictWhoseClientHasAPublicWorker(SparkSession sparkSession) {
+        return TypedAnalyses.publicWorkerShare(sparkSession.table("pessoas"));
     }
 
-    private static void percentagePerIDH(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT count(IDHMUNICIPIO) as total FROM pessoas");
-        Long total = result.first().getAs("total");
-
-        Dataset<Row> resultSet = sparkSession
-                .sql("SELECT count(*) FROM pessoas HAVING IDHMUNICIPIO => 0 AND IDHMUNICIPIO < 10 ");
-
-//        "UNION " +
-//                "SELECT (count(IDHMUNICIPIO)/" + total.toString() + ") as total2 FROM pessoas WHERE IDHMUNICIPIO => 10 AND IDHMUNICIPIO < 20 " +
-//                "UNION " +
-//                "SELECT (count(IDHMUNICIPIO)/" + total.toString() + ") as total3 FROM pessoas WHERE IDHMUNICIPIO => 20 AND IDHMUNICIPIO < 30 ");
-//        resultSet.show();
-
-        result.show();
+    /**
+     * Percentage of clients per IDH bucket, in a single scan
+     *
+     * Every bucket covers [bucketStart, bucketEnd) and the percentages are computed by a window over the
+     * grouped counts, so the total does not need its own query.
+     *
+     * @param sparkSession the spark session
+     * @param bucketWidth  the width of each IDH bucket
+     * @return one row per non empty bucket, ordered by bucketStart, see {@link IdhBucket}
+     * */
+    static Dataset<IdhBucket> percentagePerIDH(SparkSession sparkSession, double bucketWidth) {
+        return TypedAnalyses.percentagePerIDH(sparkSession.table("pessoas"), bucketWidth);
     }
 
     /**
      * Number of clients that lives near a danger zone and has an income bigger than R$7k
      *
-     * |count(DISTZONARISCO)|
-     * +--------------------+
-     * |                   1|
-     * +--------------------+
+     * |total|
+     * +-----+
+     * |    1|
+     * +-----+
      * */
-    private static void exercise7(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT count(DISTZONARISCO) FROM pessoas WHERE DISTZONARISCO < 5 AND ESTIMATIVARENDA > 7000");
-        result.show();
+    private static Dataset<Long> exercise7(SparkSession sparkSession) {
+        return TypedAnalyses.nearRiskZoneWithIncomeAbove7000(sparkSession.table("pessoas"));
     }
 
     /**
@@ -178,244 +302,43 @@ public class Main {
      *
      * Results:
      *
-     * |SOCIOEMPRESA|TARGET|count(TARGET)|
-     * +------------+------+-------------+
-     * |           1|   1.0|           43|
-     * |           0|   0.0|         2973|
-     * |           1|   0.0|          863|
-     * |           0|   1.0|          112|
-     * +------------+------+-------------+
+     * |socioEmpresa|target|total|
+     * +------------+------+-----+
+     * |           1|   1.0|   43|
+     * |           0|   0.0| 2973|
+     * |           1|   0.0|  863|
+     * |           0|   1.0|  112|
+     * +------------+------+-----+
     * */
-    private static void exercise8(SparkSession sparkSession) {
-        Dataset<Row> result = sparkSession.sql("SELECT SOCIOEMPRESA, TARGET, count(TARGET) FROM pessoas WHERE ESTIMATIVARENDA > 5000 GROUP BY TARGET, SOCIOEMPRESA");
-        result.show();
+    private static Dataset<SocioTargetCount> exercise8(SparkSession sparkSession) {
+        if (ResultCube.isAvailable(sparkSession)) {
+            return ResultCube.countNonNull(sparkSession, 5000.0, Collections.emptyMap(), "TARGET",
+                                           "SOCIOEMPRESA", "TARGET")
+                             .select(col("SOCIOEMPRESA").as("socioEmpresa"), col("TARGET").as("target"), col("total"))
+                             .as(Encoders.bean(SocioTargetCount.class));
+        }
+        return TypedAnalyses.socioTargetAbove5000(sparkSession.table("pessoas"));
     }
 
     /**
-     * Sanity checks column averages.
+     * Sanity checks the numeric columns of raw_pessoas.
      *
-     * First 5 rows:
+     * All columns are profiled in a single aggregation pass, see {@link ColumnProfiler}, and the result has one
+     * {@link ColumnProfile} per column, written to the report as
      *
-     * Tempo CPF Average: -297.76467907883824
-     * DISTCENTROCIDADE: 899.2425750243777
-     * DISTZONARISCO: 58852.77625511478
-     * QTDENDERECO: -127.73496094995944
-     * QTDEMAIL: -128.7600974200545
-     * QTDCELULAR: -128.1442163107964
+     * QTDEMAIL: avg=... min=... max=... nulls=... negatives=...
      * */
-    private static void sanityCheck(SparkSession sparkSession) {
-        Dataset<Row> tempoCpfAverage = sparkSession.sql("select avg(TEMPOCPF) as average from raw_pessoas");
-        System.out.println("Tempo CPF Average: " + tempoCpfAverage.first().getAs("average"));
-
-        Dataset<Row> distCentroCidade = sparkSession.sql("select avg(DISTCENTROCIDADE) as average from raw_pessoas");
-        System.out.println("DISTCENTROCIDADE: " + distCentroCidade.first().getAs("average"));
-
-        Dataset<Row> DISTZONARISCO = sparkSession.sql("select avg(DISTZONARISCO) as average from raw_pessoas");
-        System.out.println("DISTZONARISCO: " + DISTZONARISCO.first().getAs("average"));
-
-        Dataset<Row> QTDENDERECO = sparkSession.sql("select avg(QTDENDERECO) as average from raw_pessoas");
-        System.out.println("QTDENDERECO: " + QTDENDERECO.first().getAs("average"));
-
-        Dataset<Row> QTDEMAIL = sparkSession.sql("select avg(QTDEMAIL) as average from raw_pessoas");
-        System.out.println("QTDEMAIL: " + QTDEMAIL.first().getAs("average"));
-
-        Dataset<Row> QTDCELULAR = sparkSession.sql("select avg(QTDCELULAR) as average from raw_pessoas");
-        System.out.println("QTDCELULAR: " + QTDCELULAR.first().getAs("average"));
-
-        Dataset<Row> CELULARPROCON = sparkSession.sql("select avg(CELULARPROCON) as average from raw_pessoas");
-        System.out.println("CELULARPROCON: " + CELULARPROCON.first().getAs("average"));
-
-        Dataset<Row> QTDFONEFIXO = sparkSession.sql("select avg(QTDFONEFIXO) as average from raw_pessoas");
-        System.out.println("QTDFONEFIXO: " + QTDFONEFIXO.first().getAs("average"));
-
-        Dataset<Row> TELFIXOPROCON = sparkSession.sql("select avg(TELFIXOPROCON) as average from raw_pessoas");
-        System.out.println("TELFIXOPROCON: " + TELFIXOPROCON.first().getAs("average"));
-
-        Dataset<Row> TARGET = sparkSession.sql("select avg(TARGET) as average from raw_pessoas");
-        System.out.println("TARGET: " + TARGET.first().getAs("average"));
-
-        Dataset<Row> ESTIMATIVARENDA = sparkSession.sql("select avg(ESTIMATIVARENDA) as average from raw_pessoas");
-        System.out.println("ESTIMATIVARENDA: " + ESTIMATIVARENDA.first().getAs("average"));
-
-        Dataset<Row> QTDDECLARACAOISENTA = sparkSession.sql("select avg(QTDDECLARACAOISENTA) as average from raw_pessoas");
-        System.out.println("QTDDECLARACAOISENTA: " + QTDDECLARACAOISENTA.first().getAs("average"));
-
-        Dataset<Row> QTDDECLARACAO10 = sparkSession.sql("select avg(QTDDECLARACAO10) as average from raw_pessoas");
-        System.out.println("QTDDECLARACAO10: " + QTDDECLARACAO10.first().getAs("average"));
-
-        Dataset<Row> QTDDECLARACAOREST10 = sparkSession.sql("select avg(QTDDECLARACAOREST10) as average from raw_pessoas");
-        System.out.println("QTDDECLARACAOREST10: " + QTDDECLARACAOREST10.first().getAs("average"));
-
-        Dataset<Row> QTDDECLARACAOPAGAR10 = sparkSession.sql("select avg(QTDDECLARACAOPAGAR10) as average from raw_pessoas");
-        System.out.println("QTDDECLARACAOPAGAR10: " + QTDDECLARACAOPAGAR10.first().getAs("average"));
-
-        Dataset<Row> RESTITUICAOAGENCIAALTARENDA = sparkSession.sql("select avg(RESTITUICAOAGENCIAALTARENDA) as average from raw_pessoas");
-        System.out.println("RESTITUICAOAGENCIAALTARENDA: " + RESTITUICAOAGENCIAALTARENDA.first().getAs("average"));
-
-        Dataset<Row> BOLSAFAMILIA = sparkSession.sql("select avg(BOLSAFAMILIA) as average from raw_pessoas");
-        System.out.println("BOLSAFAMILIA: " + BOLSAFAMILIA.first().getAs("average"));
-
-        Dataset<Row> ANOSULTIMARESTITUICAO = sparkSession.sql("select avg(ANOSULTIMARESTITUICAO) as average from raw_pessoas");
-        System.out.println("ANOSULTIMARESTITUICAO: " + ANOSULTIMARESTITUICAO.first().getAs("average"));
-
-        Dataset<Row> ANOSULTIMADECLARACAO = sparkSession.sql("select avg(ANOSULTIMADECLARACAO) as average from raw_pessoas");
-        System.out.println("ANOSULTIMADECLARACAO: " + ANOSULTIMADECLARACAO.first().getAs("average"));
-
-        Dataset<Row> ANOSULTIMADECLARACAOPAGAR = sparkSession.sql("select avg(ANOSULTIMADECLARACAOPAGAR) as average from raw_pessoas");
-        System.out.println("ANOSULTIMADECLARACAOPAGAR: " + ANOSULTIMADECLARACAOPAGAR.first().getAs("average"));
-
-        Dataset<Row> INDICEEMPREGO = sparkSession.sql("select avg(INDICEEMPREGO) as average from raw_pessoas");
-        System.out.println("INDICEEMPREGO: " + INDICEEMPREGO.first().getAs("average"));
-
-        Dataset<Row> PORTEEMPREGADOR = sparkSession.sql("select avg(PORTEEMPREGADOR) as average from raw_pessoas");
-        System.out.println("PORTEEMPREGADOR: " + PORTEEMPREGADOR.first().getAs("average"));
-
-        Dataset<Row> SOCIOEMPRESA = sparkSession.sql("select avg(SOCIOEMPRESA) as average from raw_pessoas");
-        System.out.println("SOCIOEMPRESA: " + SOCIOEMPRESA.first().getAs("average"));
-
-        Dataset<Row> FUNCIONARIOPUBLICO = sparkSession.sql("select avg(FUNCIONARIOPUBLICO) as average from raw_pessoas");
-        System.out.println("FUNCIONARIOPUBLICO: " + FUNCIONARIOPUBLICO.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAO = sparkSession.sql("select avg(SEGMENTACAO) as average from raw_pessoas");
-        System.out.println("SEGMENTACAO: " + SEGMENTACAO.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOCOBRANCA = sparkSession.sql("select avg(SEGMENTACAOCOBRANCA) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOCOBRANCA: " + SEGMENTACAOCOBRANCA.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOECOM = sparkSession.sql("select avg(SEGMENTACAOECOM) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOECOM: " + SEGMENTACAOECOM.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOFIN = sparkSession.sql("select avg(SEGMENTACAOFIN) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOFIN: " + SEGMENTACAOFIN.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOTELECOM = sparkSession.sql("select avg(SEGMENTACAOTELECOM) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOTELECOM: " + SEGMENTACAOTELECOM.first().getAs("average"));
-
-        Dataset<Row> QTDraw_pessoasCASA = sparkSession.sql("select avg(QTDraw_pessoasCASA) as average from raw_pessoas");
-        System.out.println("QTDraw_pessoasCASA: " + QTDraw_pessoasCASA.first().getAs("average"));
-
-        Dataset<Row> MENORRENDACASA = sparkSession.sql("select avg(MENORRENDACASA) as average from raw_pessoas");
-        System.out.println("MENORRENDACASA: " + MENORRENDACASA.first().getAs("average"));
-
-        Dataset<Row> MAIORRENDACASA = sparkSession.sql("select avg(MAIORRENDACASA) as average from raw_pessoas");
-        System.out.println("MAIORRENDACASA: " + MAIORRENDACASA.first().getAs("average"));
-
-        Dataset<Row> MEDIARENDACASA = sparkSession.sql("select avg(MEDIARENDACASA) as average from raw_pessoas");
-        System.out.println("MEDIARENDACASA: " + MEDIARENDACASA.first().getAs("average"));
-
-        Dataset<Row> MAIORIDADECASA = sparkSession.sql("select avg(MAIORIDADECASA) as average from raw_pessoas");
-        System.out.println("MAIORIDADECASA: " + MAIORIDADECASA.first().getAs("average"));
-
-        Dataset<Row> MENORIDADECASA = sparkSession.sql("select avg(MENORIDADECASA) as average from raw_pessoas");
-        System.out.println("MENORIDADECASA: " + MENORIDADECASA.first().getAs("average"));
-
-        Dataset<Row> MEDIAIDADECASA = sparkSession.sql("select avg(MEDIAIDADECASA) as average from raw_pessoas");
-        System.out.println("MEDIAIDADECASA: " + MEDIAIDADECASA.first().getAs("average"));
-
-        Dataset<Row> INDICMENORDEIDADE = sparkSession.sql("select avg(INDICMENORDEIDADE) as average from raw_pessoas");
-        System.out.println("INDICMENORDEIDADE: " + INDICMENORDEIDADE.first().getAs("average"));
-
-        Dataset<Row> COBRANCABAIXOCASA = sparkSession.sql("select avg(COBRANCABAIXOCASA) as average from raw_pessoas");
-        System.out.println("COBRANCABAIXOCASA: " + COBRANCABAIXOCASA.first().getAs("average"));
-
-        Dataset<Row> COBRANCAMEDIOCASA = sparkSession.sql("select avg(COBRANCAMEDIOCASA) as average from raw_pessoas");
-        System.out.println("COBRANCAMEDIOCASA: " + COBRANCAMEDIOCASA.first().getAs("average"));
-
-        Dataset<Row> COBRANCAALTACASA = sparkSession.sql("select avg(COBRANCAALTACASA) as average from raw_pessoas");
-        System.out.println("COBRANCAALTACASA: " + COBRANCAALTACASA.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOFINBAIXACASA = sparkSession.sql("select avg(SEGMENTACAOFINBAIXACASA) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOFINBAIXACASA: " + SEGMENTACAOFINBAIXACASA.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOFINMEDIACASA = sparkSession.sql("select avg(SEGMENTACAOFINMEDIACASA) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOFINMEDIACASA: " + SEGMENTACAOFINMEDIACASA.first().getAs("average"));
-
-        Dataset<Row> SEGMENTACAOALTACASA = sparkSession.sql("select avg(SEGMENTACAOALTACASA) as average from raw_pessoas");
-        System.out.println("SEGMENTACAOALTACASA: " + SEGMENTACAOALTACASA.first().getAs("average"));
-
-        Dataset<Row> BOLSAFAMILIACASA = sparkSession.sql("select avg(BOLSAFAMILIACASA) as average from raw_pessoas");
-        System.out.println("BOLSAFAMILIACASA: " + BOLSAFAMILIACASA.first().getAs("average"));
-
-        Dataset<Row> FUNCIONARIOPUBLICOCASA = sparkSession.sql("select avg(FUNCIONARIOPUBLICOCASA) as average from raw_pessoas");
-        System.out.println("FUNCIONARIOPUBLICOCASA: " + FUNCIONARIOPUBLICOCASA.first().getAs("average"));
-
-        Dataset<Row> IDADEMEDIACEP = sparkSession.sql("select avg(IDADEMEDIACEP) as average from raw_pessoas");
-        System.out.println("IDADEMEDIACEP: " + IDADEMEDIACEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTMASCCEP = sparkSession.sql("select avg(PERCENTMASCCEP) as average from raw_pessoas");
-        System.out.println("PERCENTMASCCEP: " + PERCENTMASCCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTFEMCEP = sparkSession.sql("select avg(PERCENTFEMCEP) as average from raw_pessoas");
-        System.out.println("PERCENTFEMCEP: " + PERCENTFEMCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTANALFABETOCEP = sparkSession.sql("select avg(PERCENTANALFABETOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTANALFABETOCEP: " + PERCENTANALFABETOCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTPRIMARIOCEP = sparkSession.sql("select avg(PERCENTPRIMARIOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTPRIMARIOCEP: " + PERCENTPRIMARIOCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTFUNDAMENTALCEP = sparkSession.sql("select avg(PERCENTFUNDAMENTALCEP) as average from raw_pessoas");
-        System.out.println("PERCENTFUNDAMENTALCEP: " + PERCENTFUNDAMENTALCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTMEDIOCEP = sparkSession.sql("select avg(PERCENTMEDIOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTMEDIOCEP: " + PERCENTMEDIOCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTSUPERIORCEP = sparkSession.sql("select avg(PERCENTSUPERIORCEP) as average from raw_pessoas");
-        System.out.println("PERCENTSUPERIORCEP: " + PERCENTSUPERIORCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTMESTRADOCEP = sparkSession.sql("select avg(PERCENTMESTRADOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTMESTRADOCEP: " + PERCENTMESTRADOCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTDOUTORADOCEP = sparkSession.sql("select avg(PERCENTDOUTORADOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTDOUTORADOCEP: " + PERCENTDOUTORADOCEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTBOLSAFAMILIACEP = sparkSession.sql("select avg(PERCENTBOLSAFAMILIACEP) as average from raw_pessoas");
-        System.out.println("PERCENTBOLSAFAMILIACEP: " + PERCENTBOLSAFAMILIACEP.first().getAs("average"));
-
-        Dataset<Row> PERCENTFUNCIONARIOPUBLICOCEP = sparkSession.sql("select avg(PERCENTFUNCIONARIOPUBLICOCEP) as average from raw_pessoas");
-        System.out.println("PERCENTFUNCIONARIOPUBLICOCEP: " + PERCENTFUNCIONARIOPUBLICOCEP.first().getAs("average"));
-
-        Dataset<Row> MEDIARENDACEP = sparkSession.sql("select avg(MEDIARENDACEP) as average from raw_pessoas");
-        System.out.println("MEDIARENDACEP: " + MEDIARENDACEP.first().getAs("average"));
-
-        Dataset<Row> PIBMUNICIPIO = sparkSession.sql("select avg(PIBMUNICIPIO) as average from raw_pessoas");
-        System.out.println("PIBMUNICIPIO: " + PIBMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> QTDUTILITARIOMUNICIPIO = sparkSession.sql("select avg(QTDUTILITARIOMUNICIPIO) as average from raw_pessoas");
-        System.out.println("QTDUTILITARIOMUNICIPIO: " + QTDUTILITARIOMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> QTDAUTOMOVELMUNICIPIO = sparkSession.sql("select avg(QTDAUTOMOVELMUNICIPIO) as average from raw_pessoas");
-        System.out.println("QTDAUTOMOVELMUNICIPIO: " + QTDAUTOMOVELMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> QTDCAMINHAOMUNICIPIO = sparkSession.sql("select avg(QTDCAMINHAOMUNICIPIO) as average from raw_pessoas");
-        System.out.println("QTDCAMINHAOMUNICIPIO: " + QTDCAMINHAOMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> QTDCAMINHONETEMUNICIPIO = sparkSession.sql("select avg(QTDCAMINHONETEMUNICIPIO) as average from raw_pessoas");
-        System.out.println("QTDCAMINHONETEMUNICIPIO: " + QTDCAMINHONETEMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> QTDMOTOMUNICIPIO = sparkSession.sql("select avg(QTDMOTOMUNICIPIO) as average from raw_pessoas");
-        System.out.println("QTDMOTOMUNICIPIO: " + QTDMOTOMUNICIPIO.first().getAs("average"));
-
-        Dataset<Row> PERCENTPOPZONAURBANA = sparkSession.sql("select avg(PERCENTPOPZONAURBANA) as average from raw_pessoas");
-        System.out.println("PERCENTPOPZONAURBANA: " + PERCENTPOPZONAURBANA.first().getAs("average"));
-
-        Dataset<Row> IDHMUNICIPIO = sparkSession.sql("select avg(IDHMUNICIPIO) as average from raw_pessoas");
-        System.out.println("IDHMUNICIPIO: " + IDHMUNICIPIO.first().getAs("average"));
+    private static Dataset<ColumnProfile> sanityCheck(SparkSession sparkSession) {
+        return ColumnProfiler.profileDataset(sparkSession, "raw_pessoas", SchemaRegistry.numericColumns());
     }
 
     /**
      * Clean up the datasets with found errors.
      *
+     * The checks are declared in {@link CleanupRules}. The Parquet ingest applies them per source table before
+     * the join; this applies all of them to an already joined dataset.
      * */
-    private static Dataset<Row> cleanUp(Dataset<Row> dataset) {
-        return dataset
-                .filter("QTDEMAIL > 0 AND ESTIMATIVARENDA > 0 AND QTDDECLARACAO10 > 0")
-                .filter("QTDDECLARACAOREST10 > 0 AND QTDDECLARACAOPAGAR10 > 0")
-                .filter("ANOSULTIMARESTITUICAO > 0 AND ANOSULTIMADECLARACAO > 0")
-                .filter("ANOSULTIMADECLARACAOPAGAR > 0")
-                .filter("BOLSAFAMILIA IN (0,1)")
-                .filter("FUNCIONARIOPUBLICOCASA IN (0,1)")
-                .filter("IDHMUNICIPIO > 0 AND IDHMUNICIPIO < 100")
-                .filter("DISTZONARISCO > 0");
+    static Dataset<Row> cleanUp(Dataset<Row> dataset) {
+        return CleanupRules.accept(dataset, CleanupRules.RULES);
     }
 }
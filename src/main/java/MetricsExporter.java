@@ -0,0 +1,101 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports {@link QueryMetrics} as JSON lines, added to the file so it keeps the history of every run, or as a
+ * Prometheus text file, overwritten so it always holds the latest run.
+ *
+ * Hadoop append is not used: the local file system (a ChecksumFileSystem) and S3 do not support it, only HDFS does.
+ * The JSON history is copied to a temporary file next to it, the new lines are added and the copy is renamed over
+ * the original, which works on every file system at the cost of rewriting the history on each run.
+ */
+public final class MetricsExporter {
+
+    /**
+     * The export format.
+     */
+    public enum Format {
+        JSON,
+        PROMETHEUS
+    }
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Writes the metrics to a file.
+     *
+     * @param metrics the query metrics
+     * @param output  the output file, on any file system supported by Hadoop
+     * @param format  the export format
+     * @param conf    the hadoop configuration
+     * @throws IOException if the file cannot be written
+     */
+    public static void export(List<QueryMetrics> metrics, String output, Format format, Configuration conf)
+            throws IOException {
+        Path path = new Path(output);
+        FileSystem fs = path.getFileSystem(conf);
+        Path target = format == Format.JSON && fs.exists(path)
+                ? new Path(path.getParent(), "." + path.getName() + ".tmp")
+                : path;
+
+        try (FSDataOutputStream stream = fs.create(target, true)) {
+            if (target != path) {
+                copy(fs, path, stream);
+            }
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            if (format == Format.JSON) {
+                for (QueryMetrics query : metrics) {
+                    writer.println(toJson(query));
+                }
+            } else {
+                writePrometheus(metrics, writer);
+            }
+            writer.flush();
+        }
+
+        if (target != path && !(fs.delete(path, false) && fs.rename(target, path))) {
+            throw new IOException("Could not replace " + path + " with " + target);
+        }
+    }
+
+    private static void copy(FileSystem fs, Path path, FSDataOutputStream stream) throws IOException {
+        try (FSDataInputStream input = fs.open(path)) {
+            byte[] buffer = new byte[8192];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                stream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static String toJson(QueryMetrics metrics) {
+        StringBuilder json = new StringBuilder("{\"query\":\"").append(metrics.getQuery().replace("\"", "\\\""))
+                                                               .append("\",\"timestamp\":").append(metrics.getTimestamp());
+        for (Map.Entry<String, Long> value : metrics.values().entrySet()) {
+            json.append(",\"").append(value.getKey()).append("\":").append(value.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    private static void writePrometheus(List<QueryMetrics> metrics, PrintWriter writer) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        for (String name : metrics.get(0).values().keySet()) {
+            writer.println("# TYPE bank_query_" + name + " gauge");
+            for (QueryMetrics query : metrics) {
+                writer.println("bank_query_" + name + "{query=\"" + query.getQuery() + "\"} " + query.values().get(name));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * The number of clients with a gender orientation.
+ */
+public class OrientationCount {
+
+    private String orientacaoSexual;
+    private long total;
+
+    public String getOrientacaoSexual() {
+        return orientacaoSexual;
+    }
+
+    public void setOrientacaoSexual(String orientacaoSexual) {
+        this.orientacaoSexual = orientacaoSexual;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return orientacaoSexual + "|" + total;
+    }
+}
@@ -0,0 +1,211 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.storage.StorageLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.apache.spark.sql.functions.col;
+
+/**
+ * Converts the ommlbd_*.csv inputs to typed Parquet once, so later runs skip CSV parsing.
+ *
+ * Every converted directory holds a stamp of the file(s) it was built from, and a conversion is only
+ * redone when that stamp changes.
+ */
+public final class ParquetIngest {
+
+    /**
+     * The name of the pre-joined, cleaned table.
+     */
+    public static final String PESSOAS = "pessoas";
+
+    /**
+     * The name of the table holding the rows rejected by the {@link CleanupRules}, with their reason.
+     */
+    public static final String REJECTS = "rejects";
+
+    /**
+     * The name of the table holding the {@link SkewedKey}s found while joining pessoas.
+     */
+    public static final String SKEWED_KEYS = "skewed_keys";
+
+    private static final Logger LOGGER = Logger.getLogger(ParquetIngest.class);
+    private static final String STAMP_FILE = "_SOURCE_STAMP";
+
+    private ParquetIngest() {
+    }
+
+    /**
+     * Converts each source CSV to Parquet and stores the joined pessoas table sorted by HS_CPF.
+     *
+     * The cleanup rules are applied to each table before the join, and the rows they reject are written to the
+     * rejects table with their source and reason. The skewed keys found by the join are written to the skewed_keys
+     * table.
+     *
+     * @param sparkSession the spark session
+     * @param inputDir     the directory holding the ommlbd_*.csv files
+     * @param outputDir    the directory the Parquet tables are written to
+     * @param mode         how values that do not match the schema are handled
+     * @param joinPlanner  the planner of the HS_CPF join
+     * @return true if a source changed and the tables were rebuilt, false if they were up to date
+     * @throws IOException if the stamps cannot be read or written
+     */
+    public static boolean ingest(SparkSession sparkSession, String inputDir, String outputDir,
+                              SchemaRegistry.ParseMode mode, JoinPlanner joinPlanner) throws IOException {
+        Configuration conf = sparkSession.sparkContext().hadoopConfiguration();
+        StringBuilder sourcesStamp = new StringBuilder();
+
+        for (SourceTable table : SourceTable.values()) {
+            Path csv = new Path(inputDir, table.fileName() + ".csv");
+            Path target = new Path(outputDir, table.fileName());
+            String stamp = stampOf(csv, conf);
+            sourcesStamp.append(stamp).append('\n');
+
+            if (stamp.equals(readStamp(target, conf))) {
+                LOGGER.info(table.fileName() + " is up to date, skipping conversion");
+                continue;
+            }
+
+            LOGGER.info("Converting " + csv + " to " + target);
+            // Cached so the malformed row count and the write share one parse of the CSV
+            Dataset<Row> raw = sparkSession.read().option("header", true).csv(csv.toString())
+                                           .persist(StorageLevel.MEMORY_AND_DISK());
+            try {
+                SchemaRegistry.typed(raw, table, mode).write().mode(SaveMode.Overwrite).parquet(target.toString());
+            } finally {
+                raw.unpersist();
+            }
+            writeStamp(target, stamp, conf);
+        }
+
+        Path pessoas = new Path(outputDir, PESSOAS);
+        if (sourcesStamp.toString().equals(readStamp(pessoas, conf))) {
+            LOGGER.info(PESSOAS + " is up to date, skipping join");
+            return false;
+        }
+
+        LOGGER.info("Building " + pessoas);
+
+        // Each table is scanned once, tagged with its reject reason and kept around, so the join and the rejects
+        // share that scan. The rules are evaluated on the tagged rows rather than pushed into the Parquet reader; their
+        // > 0 and IN (0,1) predicates would rarely let it skip a row group anyway
+        Map<SourceTable, Dataset<Row>> tagged = new EnumMap<>(SourceTable.class);
+        Map<SourceTable, Dataset<Row>> accepted = new EnumMap<>(SourceTable.class);
+        for (SourceTable table : SourceTable.values()) {
+            Dataset<Row> dataset = read(sparkSession, outputDir, table)
+                    .withColumn(CleanupRules.REASON, CleanupRules.rejectReason(CleanupRules.rulesFor(table)))
+                    .persist(StorageLevel.MEMORY_AND_DISK());
+            tagged.put(table, dataset);
+            accepted.put(table, dataset.filter(col(CleanupRules.REASON).isNull()).drop(CleanupRules.REASON));
+        }
+
+        try {
+            Dataset<Row> sorted = joinPlanner.join(sparkSession, outputDir, accepted).orderBy(SourceTable.KEY);
+            JoinPlanner.explain(sorted);
+            sorted.write()
+                  .mode(SaveMode.Overwrite)
+                  .parquet(pessoas.toString());
+
+            Dataset<Row> rejects = null;
+            for (SourceTable table : SourceTable.values()) {
+                Dataset<Row> tableRejects = CleanupRules.rejects(tagged.get(table), table);
+                rejects = rejects == null ? tableRejects : rejects.union(tableRejects);
+            }
+            rejects.write()
+                   .mode(SaveMode.Overwrite)
+                   .parquet(new Path(outputDir, REJECTS).toString());
+
+            sparkSession.createDataFrame(joinPlanner.getSkewedKeys(), SkewedKey.class)
+                        .write()
+                        .mode(SaveMode.Overwrite)
+                        .parquet(new Path(outputDir, SKEWED_KEYS).toString());
+        } finally {
+            for (Dataset<Row> dataset : tagged.values()) {
+                dataset.unpersist();
+            }
+        }
+        writeStamp(pessoas, sourcesStamp.toString(), conf);
+        return true;
+    }
+
+    /**
+     * Reads a converted source table.
+     *
+     * @param sparkSession the spark session
+     * @param outputDir    the directory the Parquet tables were written to
+     * @param table        the source table
+     * @return the typed table
+     */
+    public static Dataset<Row> read(SparkSession sparkSession, String outputDir, SourceTable table) {
+        return sparkSession.read().parquet(new Path(outputDir, table.fileName()).toString());
+    }
+
+    /**
+     * Reads the pre-joined, cleaned pessoas table.
+     *
+     * @param sparkSession the spark session
+     * @param outputDir    the directory the Parquet tables were written to
+     * @return the pessoas table
+     */
+    public static Dataset<Row> readPessoas(SparkSession sparkSession, String outputDir) {
+        return sparkSession.read().parquet(new Path(outputDir, PESSOAS).toString());
+    }
+
+    private static String stampOf(Path source, Configuration conf) throws IOException {
+        FileStatus status = source.getFileSystem(conf).getFileStatus(source);
+        return status.getPath() + ":" + status.getLen() + ":" + status.getModificationTime();
+    }
+
+    /**
+     * Reads the stamp of the files a converted directory was built from.
+     *
+     * @param target the converted directory
+     * @param conf   the hadoop configuration
+     * @return the stamp, or null if the directory has none
+     * @throws IOException if the stamp cannot be read
+     */
+    static String readStamp(Path target, Configuration conf) throws IOException {
+        Path stampFile = new Path(target, STAMP_FILE);
+        FileSystem fs = stampFile.getFileSystem(conf);
+        if (!fs.exists(stampFile)) {
+            return null;
+        }
+        try (InputStream in = fs.open(stampFile)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Records the stamp of the files a converted directory was built from.
+     *
+     * @param target the converted directory
+     * @param stamp  the stamp
+     * @param conf   the hadoop configuration
+     * @throws IOException if the stamp cannot be written
+     */
+    static void writeStamp(Path target, String stamp, Configuration conf) throws IOException {
+        Path stampFile = new Path(target, STAMP_FILE);
+        try (FSDataOutputStream out = stampFile.getFileSystem(conf).create(stampFile, true)) {
+            out.write(stamp.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
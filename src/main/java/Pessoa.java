@@ -0,0 +1,51 @@
+/**
+ * A row of the pessoas table, split in one part per source table. It is built by {@link Projections#pessoas}.
+ */
+public class Pessoa {
+
+    private Basico basico;
+    private Empresarial empresarial;
+    private Familiar familiar;
+    private Regional regional;
+    private Renda renda;
+
+    public Basico getBasico() {
+        return basico;
+    }
+
+    public void setBasico(Basico basico) {
+        this.basico = basico;
+    }
+
+    public Empresarial getEmpresarial() {
+        return empresarial;
+    }
+
+    public void setEmpresarial(Empresarial empresarial) {
+        this.empresarial = empresarial;
+    }
+
+    public Familiar getFamiliar() {
+        return familiar;
+    }
+
+    public void setFamiliar(Familiar familiar) {
+        this.familiar = familiar;
+    }
+
+    public Regional getRegional() {
+        return regional;
+    }
+
+    public void setRegional(Regional regional) {
+        this.regional = regional;
+    }
+
+    public Renda getRenda() {
+        return renda;
+    }
+
+    public void setRenda(Renda renda) {
+        this.renda = renda;
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of profiling a view: one {@link ColumnProfile} per column.
+ */
+public class ProfileReport {
+
+    private final String view;
+    private final Map<String, ColumnProfile> columns = new LinkedHashMap<>();
+
+    /**
+     * Instantiates a new Profile report.
+     *
+     * @param view     the profiled view
+     * @param profiles the column profiles, in column order
+     */
+    public ProfileReport(String view, List<ColumnProfile> profiles) {
+        this.view = view;
+        for (ColumnProfile profile : profiles) {
+            columns.put(profile.getColumn(), profile);
+        }
+    }
+
+    public String getView() {
+        return view;
+    }
+
+    /**
+     * Gets the profile of a column.
+     *
+     * @param column the column name
+     * @return the column profile, or null if the column was not profiled
+     */
+    public ColumnProfile get(String column) {
+        return columns.get(column);
+    }
+
+    public List<ColumnProfile> getColumns() {
+        return Collections.unmodifiableList(new ArrayList<>(columns.values()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(view);
+        for (ColumnProfile profile : columns.values()) {
+            builder.append(System.lineSeparator()).append(profile);
+        }
+        return builder.toString();
+    }
+}
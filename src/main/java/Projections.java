@@ -0,0 +1,75 @@
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoder;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.Row;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.col;
+import static org.apache.spark.sql.functions.struct;
+
+/**
+ * Typed views of the pessoas and source table datasets.
+ *
+ * A projection selects only the columns of its bean before converting to it, so Parquet scans read only those
+ * columns and each row only deserializes the bean's fields. The columns are resolved when the projection is built,
+ * so a missing column fails with an AnalysisException before any data is read.
+ */
+public final class Projections {
+
+    private Projections() {
+    }
+
+    /**
+     * Projects a dataset to the columns of a bean.
+     *
+     * @param dataset   the dataset, for example pessoas or a source table
+     * @param beanClass the bean, whose properties are named like the columns
+     * @param <T>       the bean type
+     * @return the typed dataset
+     */
+    public static <T> Dataset<T> project(Dataset<Row> dataset, Class<T> beanClass) {
+        Encoder<T> encoder = Encoders.bean(beanClass);
+        List<Column> columns = new ArrayList<>();
+        for (String name : encoder.schema().fieldNames()) {
+            columns.add(col(name));
+        }
+        return dataset.select(columns.toArray(new Column[0])).as(encoder);
+    }
+
+    /**
+     * Refers to a column of a {@link Pessoa}, inside the part of its source table.
+     *
+     * @param table  the source table owning the column
+     * @param column the column, one of the constants of the table bean
+     * @return the column
+     * @throws IllegalArgumentException if the table has no such column
+     */
+    public static Column column(SourceTable table, String column) {
+        return col(part(table) + "." + table.column(column));
+    }
+
+    /**
+     * Views pessoas as {@link Pessoa}s, nesting the columns of each source table in its own part.
+     *
+     * @param pessoas the joined pessoas dataset
+     * @return the typed dataset
+     */
+    public static Dataset<Pessoa> pessoas(Dataset<Row> pessoas) {
+        List<Column> parts = new ArrayList<>();
+        for (SourceTable table : SourceTable.values()) {
+            List<Column> columns = new ArrayList<>();
+            for (String name : table.schema().fieldNames()) {
+                columns.add(col(name));
+            }
+            parts.add(struct(columns.toArray(new Column[0])).as(part(table)));
+        }
+        return pessoas.select(parts.toArray(new Column[0])).as(Encoders.bean(Pessoa.class));
+    }
+
+    private static String part(SourceTable table) {
+        return table.name().toLowerCase();
+    }
+}
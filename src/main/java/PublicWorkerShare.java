@@ -0,0 +1,38 @@
+/**
+ * The proposals whose client lives with a public worker, out of every proposal.
+ */
+public class PublicWorkerShare {
+
+    private long total;
+    private long publicWorkers;
+    private Double percentage;
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getPublicWorkers() {
+        return publicWorkers;
+    }
+
+    public void setPublicWorkers(long publicWorkers) {
+        this.publicWorkers = publicWorkers;
+    }
+
+    public Double getPercentage() {
+        return percentage;
+    }
+
+    public void setPercentage(Double percentage) {
+        this.percentage = percentage;
+    }
+
+    @Override
+    public String toString() {
+        return total + "|" + publicWorkers + "|" + percentage;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The resources used by the Spark jobs of one query, as collected by {@link QueryMetricsListener}.
+ */
+public class QueryMetrics {
+
+    private final String query;
+    private final long timestamp;
+    private final long wallTimeMs;
+    private final int jobs;
+    private final long rowsScanned;
+    private final long shuffleBytesRead;
+    private final long shuffleBytesWritten;
+    private final long bytesSpilled;
+    private final long peakExecutionMemory;
+
+    /**
+     * Instantiates a new Query metrics.
+     *
+     * @param query               the query name, used as job group
+     * @param timestamp           when the query finished, in epoch milliseconds
+     * @param wallTimeMs          the wall time of the query
+     * @param jobs                the number of Spark jobs run by the query
+     * @param rowsScanned         the number of records read from the inputs
+     * @param shuffleBytesRead    the number of shuffle bytes read
+     * @param shuffleBytesWritten the number of shuffle bytes written
+     * @param bytesSpilled        the number of bytes spilled to memory and disk
+     * @param peakExecutionMemory the highest peak execution memory of a single task
+     */
+    public QueryMetrics(String query, long timestamp, long wallTimeMs, int jobs, long rowsScanned,
+                        long shuffleBytesRead, long shuffleBytesWritten, long bytesSpilled, long peakExecutionMemory) {
+        this.query = query;
+        this.timestamp = timestamp;
+        this.wallTimeMs = wallTimeMs;
+        this.jobs = jobs;
+        this.rowsScanned = rowsScanned;
+        this.shuffleBytesRead = shuffleBytesRead;
+        this.shuffleBytesWritten = shuffleBytesWritten;
+        this.bytesSpilled = bytesSpilled;
+        this.peakExecutionMemory = peakExecutionMemory;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getWallTimeMs() {
+        return wallTimeMs;
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getShuffleBytesRead() {
+        return shuffleBytesRead;
+    }
+
+    public long getShuffleBytesWritten() {
+        return shuffleBytesWritten;
+    }
+
+    public long getBytesSpilled() {
+        return bytesSpilled;
+    }
+
+    public long getPeakExecutionMemory() {
+        return peakExecutionMemory;
+    }
+
+    /**
+     * Gets the numeric metrics by name, in a stable order.
+     *
+     * @return the metrics
+     */
+    public Map<String, Long> values() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("wall_time_ms", wallTimeMs);
+        values.put("jobs", (long) jobs);
+        values.put("rows_scanned", rowsScanned);
+        values.put("shuffle_bytes_read", shuffleBytesRead);
+        values.put("shuffle_bytes_written", shuffleBytesWritten);
+        values.put("bytes_spilled", bytesSpilled);
+        values.put("peak_execution_memory_bytes", peakExecutionMemory);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return query + ": " + values();
+    }
+}
@@ -0,0 +1,87 @@
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerJobStart;
+import org.apache.spark.scheduler.SparkListenerTaskEnd;
+import org.apache.spark.scheduler.StageInfo;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates the task metrics of every job by job group, so each query tagged with
+ * SparkContext.setJobGroup gets its own {@link QueryMetrics}.
+ */
+public class QueryMetricsListener extends SparkListener {
+
+    private static final String JOB_GROUP = "spark.jobGroup.id";
+
+    private final Map<Integer, String> groupOfStage = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> completedJobs = new ConcurrentHashMap<>();
+    private final Map<String, long[]> totals = new ConcurrentHashMap<>();
+
+    @Override
+    public void onJobStart(SparkListenerJobStart jobStart) {
+        Properties properties = jobStart.properties();
+        String group = properties == null ? null : properties.getProperty(JOB_GROUP);
+        if (group == null) {
+            return;
+        }
+        for (StageInfo stage : scala.collection.JavaConversions.seqAsJavaList(jobStart.stageInfos())) {
+            groupOfStage.put(stage.stageId(), group);
+        }
+        totals.computeIfAbsent(group, key -> new long[6])[0]++;
+    }
+
+    @Override
+    public void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+        String group = groupOfStage.get(taskEnd.stageId());
+        TaskMetrics metrics = taskEnd.taskMetrics();
+        if (group == null || metrics == null) {
+            return;
+        }
+        long[] groupTotals = totals.get(group);
+        if (groupTotals == null) {
+            return;
+        }
+        groupTotals[1] += metrics.inputMetrics().recordsRead();
+        groupTotals[2] += metrics.shuffleReadMetrics().totalBytesRead();
+        groupTotals[3] += metrics.shuffleWriteMetrics().bytesWritten();
+        groupTotals[4] += metrics.memoryBytesSpilled() + metrics.diskBytesSpilled();
+        groupTotals[5] = Math.max(groupTotals[5], metrics.peakExecutionMemory());
+    }
+
+    @Override
+    public void onJobEnd(SparkListenerJobEnd jobEnd) {
+        completedJobs.put(jobEnd.jobId(), true);
+    }
+
+    /**
+     * Waits until the listener has processed the given jobs, then returns and forgets the metrics of their group.
+     *
+     * @param group      the job group of the query
+     * @param jobIds     the ids of the jobs run in the group
+     * @param wallTimeMs the wall time of the query, measured by the caller
+     * @param timeoutMs  how long to wait for the listener to catch up
+     * @return the query metrics
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public QueryMetrics collect(String group, int[] jobIds, long wallTimeMs, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (int jobId : jobIds) {
+            while (!completedJobs.containsKey(jobId) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            completedJobs.remove(jobId);
+        }
+
+        groupOfStage.values().removeIf(group::equals);
+        long[] groupTotals = totals.remove(group);
+        if (groupTotals == null) {
+            groupTotals = new long[6];
+        }
+        return new QueryMetrics(group, System.currentTimeMillis(), wallTimeMs, (int) groupTotals[0], groupTotals[1],
+                                groupTotals[2], groupTotals[3], groupTotals[4], groupTotals[5]);
+    }
+}
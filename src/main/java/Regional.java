@@ -0,0 +1,230 @@
+/**
+ * A row of the ommlbd_regional table, see {@link SourceTable#REGIONAL}. Its properties are named like the columns, so it can
+ * be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class Regional {
+
+    // The column names, so queries referring to them are checked by the compiler. Each one is looked up in the
+    // table schema, so a name the schema does not have fails when the class is first used
+    public static final String HS_CPF = SourceTable.REGIONAL.column("HS_CPF");
+    public static final String IDADEMEDIACEP = SourceTable.REGIONAL.column("IDADEMEDIACEP");
+    public static final String PERCENTMASCCEP = SourceTable.REGIONAL.column("PERCENTMASCCEP");
+    public static final String PERCENTFEMCEP = SourceTable.REGIONAL.column("PERCENTFEMCEP");
+    public static final String PERCENTANALFABETOCEP = SourceTable.REGIONAL.column("PERCENTANALFABETOCEP");
+    public static final String PERCENTPRIMARIOCEP = SourceTable.REGIONAL.column("PERCENTPRIMARIOCEP");
+    public static final String PERCENTFUNDAMENTALCEP = SourceTable.REGIONAL.column("PERCENTFUNDAMENTALCEP");
+    public static final String PERCENTMEDIOCEP = SourceTable.REGIONAL.column("PERCENTMEDIOCEP");
+    public static final String PERCENTSUPERIORCEP = SourceTable.REGIONAL.column("PERCENTSUPERIORCEP");
+    public static final String PERCENTMESTRADOCEP = SourceTable.REGIONAL.column("PERCENTMESTRADOCEP");
+    public static final String PERCENTDOUTORADOCEP = SourceTable.REGIONAL.column("PERCENTDOUTORADOCEP");
+    public static final String PERCENTBOLSAFAMILIACEP = SourceTable.REGIONAL.column("PERCENTBOLSAFAMILIACEP");
+    public static final String PERCENTFUNCIONARIOPUBLICOCEP = SourceTable.REGIONAL.column("PERCENTFUNCIONARIOPUBLICOCEP");
+    public static final String MEDIARENDACEP = SourceTable.REGIONAL.column("MEDIARENDACEP");
+    public static final String PIBMUNICIPIO = SourceTable.REGIONAL.column("PIBMUNICIPIO");
+    public static final String QTDUTILITARIOMUNICIPIO = SourceTable.REGIONAL.column("QTDUTILITARIOMUNICIPIO");
+    public static final String QTDAUTOMOVELMUNICIPIO = SourceTable.REGIONAL.column("QTDAUTOMOVELMUNICIPIO");
+    public static final String QTDCAMINHAOMUNICIPIO = SourceTable.REGIONAL.column("QTDCAMINHAOMUNICIPIO");
+    public static final String QTDCAMINHONETEMUNICIPIO = SourceTable.REGIONAL.column("QTDCAMINHONETEMUNICIPIO");
+    public static final String QTDMOTOMUNICIPIO = SourceTable.REGIONAL.column("QTDMOTOMUNICIPIO");
+    public static final String PERCENTPOPZONAURBANA = SourceTable.REGIONAL.column("PERCENTPOPZONAURBANA");
+    public static final String IDHMUNICIPIO = SourceTable.REGIONAL.column("IDHMUNICIPIO");
+
+    private String hs_cpf;
+    private Double idademediacep;
+    private Double percentmasccep;
+    private Double percentfemcep;
+    private Double percentanalfabetocep;
+    private Double percentprimariocep;
+    private Double percentfundamentalcep;
+    private Double percentmediocep;
+    private Double percentsuperiorcep;
+    private Double percentmestradocep;
+    private Double percentdoutoradocep;
+    private Double percentbolsafamiliacep;
+    private Double percentfuncionariopublicocep;
+    private Double mediarendacep;
+    private Double pibmunicipio;
+    private Integer qtdutilitariomunicipio;
+    private Integer qtdautomovelmunicipio;
+    private Integer qtdcaminhaomunicipio;
+    private Integer qtdcaminhonetemunicipio;
+    private Integer qtdmotomunicipio;
+    private Double percentpopzonaurbana;
+    private Double idhmunicipio;
+
+    public String getHS_CPF() {
+        return hs_cpf;
+    }
+
+    public void setHS_CPF(String hs_cpf) {
+        this.hs_cpf = hs_cpf;
+    }
+
+    public Double getIDADEMEDIACEP() {
+        return idademediacep;
+    }
+
+    public void setIDADEMEDIACEP(Double idademediacep) {
+        this.idademediacep = idademediacep;
+    }
+
+    public Double getPERCENTMASCCEP() {
+        return percentmasccep;
+    }
+
+    public void setPERCENTMASCCEP(Double percentmasccep) {
+        this.percentmasccep = percentmasccep;
+    }
+
+    public Double getPERCENTFEMCEP() {
+        return percentfemcep;
+    }
+
+    public void setPERCENTFEMCEP(Double percentfemcep) {
+        this.percentfemcep = percentfemcep;
+    }
+
+    public Double getPERCENTANALFABETOCEP() {
+        return percentanalfabetocep;
+    }
+
+    public void setPERCENTANALFABETOCEP(Double percentanalfabetocep) {
+        this.percentanalfabetocep = percentanalfabetocep;
+    }
+
+    public Double getPERCENTPRIMARIOCEP() {
+        return percentprimariocep;
+    }
+
+    public void setPERCENTPRIMARIOCEP(Double percentprimariocep) {
+        this.percentprimariocep = percentprimariocep;
+    }
+
+    public Double getPERCENTFUNDAMENTALCEP() {
+        return percentfundamentalcep;
+    }
+
+    public void setPERCENTFUNDAMENTALCEP(Double percentfundamentalcep) {
+        this.percentfundamentalcep = percentfundamentalcep;
+    }
+
+    public Double getPERCENTMEDIOCEP() {
+        return percentmediocep;
+    }
+
+    public void setPERCENTMEDIOCEP(Double percentmediocep) {
+        this.percentmediocep = percentmediocep;
+    }
+
+    public Double getPERCENTSUPERIORCEP() {
+        return percentsuperiorcep;
+    }
+
+    public void setPERCENTSUPERIORCEP(Double percentsuperiorcep) {
+        this.percentsuperiorcep = percentsuperiorcep;
+    }
+
+    public Double getPERCENTMESTRADOCEP() {
+        return percentmestradocep;
+    }
+
+    public void setPERCENTMESTRADOCEP(Double percentmestradocep) {
+        this.percentmestradocep = percentmestradocep;
+    }
+
+    public Double getPERCENTDOUTORADOCEP() {
+        return percentdoutoradocep;
+    }
+
+    public void setPERCENTDOUTORADOCEP(Double percentdoutoradocep) {
+        this.percentdoutoradocep = percentdoutoradocep;
+    }
+
+    public Double getPERCENTBOLSAFAMILIACEP() {
+        return percentbolsafamiliacep;
+    }
+
+    public void setPERCENTBOLSAFAMILIACEP(Double percentbolsafamiliacep) {
+        this.percentbolsafamiliacep = percentbolsafamiliacep;
+    }
+
+    public Double getPERCENTFUNCIONARIOPUBLICOCEP() {
+        return percentfuncionariopublicocep;
+    }
+
+    public void setPERCENTFUNCIONARIOPUBLICOCEP(Double percentfuncionariopublicocep) {
+        this.percentfuncionariopublicocep = percentfuncionariopublicocep;
+    }
+
+    public Double getMEDIARENDACEP() {
+        return mediarendacep;
+    }
+
+    public void setMEDIARENDACEP(Double mediarendacep) {
+        this.mediarendacep = mediarendacep;
+    }
+
+    public Double getPIBMUNICIPIO() {
+        return pibmunicipio;
+    }
+
+    public void setPIBMUNICIPIO(Double pibmunicipio) {
+        this.pibmunicipio = pibmunicipio;
+    }
+
+    public Integer getQTDUTILITARIOMUNICIPIO() {
+        return qtdutilitariomunicipio;
+    }
+
+    public void setQTDUTILITARIOMUNICIPIO(Integer qtdutilitariomunicipio) {
+        this.qtdutilitariomunicipio = qtdutilitariomunicipio;
+    }
+
+    public Integer getQTDAUTOMOVELMUNICIPIO() {
+        return qtdautomovelmunicipio;
+    }
+
+    public void setQTDAUTOMOVELMUNICIPIO(Integer qtdautomovelmunicipio) {
+        this.qtdautomovelmunicipio = qtdautomovelmunicipio;
+    }
+
+    public Integer getQTDCAMINHAOMUNICIPIO() {
+        return qtdcaminhaomunicipio;
+    }
+
+    public void setQTDCAMINHAOMUNICIPIO(Integer qtdcaminhaomunicipio) {
+        this.qtdcaminhaomunicipio = qtdcaminhaomunicipio;
+    }
+
+    public Integer getQTDCAMINHONETEMUNICIPIO() {
+        return qtdcaminhonetemunicipio;
+    }
+
+    public void setQTDCAMINHONETEMUNICIPIO(Integer qtdcaminhonetemunicipio) {
+        this.qtdcaminhonetemunicipio = qtdcaminhonetemunicipio;
+    }
+
+    public Integer getQTDMOTOMUNICIPIO() {
+        return qtdmotomunicipio;
+    }
+
+    public void setQTDMOTOMUNICIPIO(Integer qtdmotomunicipio) {
+        this.qtdmotomunicipio = qtdmotomunicipio;
+    }
+
+    public Double getPERCENTPOPZONAURBANA() {
+        return percentpopzonaurbana;
+    }
+
+    public void setPERCENTPOPZONAURBANA(Double percentpopzonaurbana) {
+        this.percentpopzonaurbana = percentpopzonaurbana;
+    }
+
+    public Double getIDHMUNICIPIO() {
+        return idhmunicipio;
+    }
+
+    public void setIDHMUNICIPIO(Double idhmunicipio) {
+        this.idhmunicipio = idhmunicipio;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * A row of the ommlbd_renda table, see {@link SourceTable#RENDA}. Its properties are named like the columns, so it can
+ * be used with {@link org.apache.spark.sql.Encoders#bean(Class)}.
+ */
+public class Renda {
+
+    // The column names, so queries referring to them are checked by the compiler. Each one is looked up in the
+    // table schema, so a name the schema does not have fails when the class is first used
+    public static final String HS_CPF = SourceTable.RENDA.column("HS_CPF");
+    public static final String ESTIMATIVARENDA = SourceTable.RENDA.column("ESTIMATIVARENDA");
+    public static final String QTDDECLARACAOISENTA = SourceTable.RENDA.column("QTDDECLARACAOISENTA");
+    public static final String QTDDECLARACAO10 = SourceTable.RENDA.column("QTDDECLARACAO10");
+    public static final String QTDDECLARACAOREST10 = SourceTable.RENDA.column("QTDDECLARACAOREST10");
+    public static final String QTDDECLARACAOPAGAR10 = SourceTable.RENDA.column("QTDDECLARACAOPAGAR10");
+    public static final String RESTITUICAOAGENCIAALTARENDA = SourceTable.RENDA.column("RESTITUICAOAGENCIAALTARENDA");
+    public static final String BOLSAFAMILIA = SourceTable.RENDA.column("BOLSAFAMILIA");
+    public static final String ANOSULTIMARESTITUICAO = SourceTable.RENDA.column("ANOSULTIMARESTITUICAO");
+    public static final String ANOSULTIMADECLARACAO = SourceTable.RENDA.column("ANOSULTIMADECLARACAO");
+    public static final String ANOSULTIMADECLARACAOPAGAR = SourceTable.RENDA.column("ANOSULTIMADECLARACAOPAGAR");
+
+    private String hs_cpf;
+    private Double estimativarenda;
+    private Integer qtddeclaracaoisenta;
+    private Integer qtddeclaracao10;
+    private Integer qtddeclaracaorest10;
+    private Integer qtddeclaracaopagar10;
+    private Integer restituicaoagenciaaltarenda;
+    private Integer bolsafamilia;
+    private Integer anosultimarestituicao;
+    private Integer anosultimadeclaracao;
+    private Integer anosultimadeclaracaopagar;
+
+    public String getHS_CPF() {
+        return hs_cpf;
+    }
+
+    public void setHS_CPF(String hs_cpf) {
+        this.hs_cpf = hs_cpf;
+    }
+
+    public Double getESTIMATIVARENDA() {
+        return estimativarenda;
+    }
+
+    public void setESTIMATIVARENDA(Double estimativarenda) {
+        this.estimativarenda = estimativarenda;
+    }
+
+    public Integer getQTDDECLARACAOISENTA() {
+        return qtddeclaracaoisenta;
+    }
+
+    public void setQTDDECLARACAOISENTA(Integer qtddeclaracaoisenta) {
+        this.qtddeclaracaoisenta = qtddeclaracaoisenta;
+    }
+
+    public Integer getQTDDECLARACAO10() {
+        return qtddeclaracao10;
+    }
+
+    public void setQTDDECLARACAO10(Integer qtddeclaracao10) {
+        this.qtddeclaracao10 = qtddeclaracao10;
+    }
+
+    public Integer getQTDDECLARACAOREST10() {
+        return qtddeclaracaorest10;
+    }
+
+    public void setQTDDECLARACAOREST10(Integer qtddeclaracaorest10) {
+        this.qtddeclaracaorest10 = qtddeclaracaorest10;
+    }
+
+    public Integer getQTDDECLARACAOPAGAR10() {
+        return qtddeclaracaopagar10;
+    }
+
+    public void setQTDDECLARACAOPAGAR10(Integer qtddeclaracaopagar10) {
+        this.qtddeclaracaopagar10 = qtddeclaracaopagar10;
+    }
+
+    public Integer getRESTITUICAOAGENCIAALTARENDA() {
+        return restituicaoagenciaaltarenda;
+    }
+
+    public void setRESTITUICAOAGENCIAALTARENDA(Integer restituicaoagenciaaltarenda) {
+        this.restituicaoagenciaaltarenda = restituicaoagenciaaltarenda;
+    }
+
+    public Integer getBOLSAFAMILIA() {
+        return bolsafamilia;
+    }
+
+    public void setBOLSAFAMILIA(Integer bolsafamilia) {
+        this.bolsafamilia = bolsafamilia;
+    }
+
+    public Integer getANOSULTIMARESTITUICAO() {
+        return anosultimarestituicao;
+    }
+
+    public void setANOSULTIMARESTITUICAO(Integer anosultimarestituicao) {
+        this.anosultimarestituicao = anosultimarestituicao;
+    }
+
+    public Integer getANOSULTIMADECLARACAO() {
+        return anosultimadeclaracao;
+    }
+
+    public void setANOSULTIMADECLARACAO(Integer anosultimadeclaracao) {
+        this.anosultimadeclaracao = anosultimadeclaracao;
+    }
+
+    public Integer getANOSULTIMADECLARACAOPAGAR() {
+        return anosultimadeclaracaopagar;
+    }
+
+    public void setANOSULTIMADECLARACAOPAGAR(Integer anosultimadeclaracaopagar) {
+        this.anosultimadeclaracaopagar = anosultimadeclaracaopagar;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of one analysis run by the {@link ReportRunner}.
+ */
+public class ReportResult {
+
+    private final String name;
+    private final long wallTimeMs;
+    private final List<?> rows;
+    private final Exception error;
+    private final QueryMetrics metrics;
+
+    /**
+     * Instantiates a new Report result.
+     *
+     * @param name       the analysis name
+     * @param wallTimeMs the wall time of the analysis, in milliseconds
+     * @param rows       the result rows or typed results, empty if the analysis failed
+     * @param error      the failure, null if the analysis succeeded
+     * @param metrics    the metrics of the Spark jobs run by the analysis
+     */
+    public ReportResult(String name, long wallTimeMs, List<?> rows, Exception error, QueryMetrics metrics) {
+        this.name = name;
+        this.wallTimeMs = wallTimeMs;
+        this.rows = rows == null ? Collections.emptyList() : rows;
+        this.error = error;
+        this.metrics = metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWallTimeMs() {
+        return wallTimeMs;
+    }
+
+    public List<?> getRows() {
+        return rows;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,148 @@
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.SparkContext;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a set of analyses concurrently against one SparkSession and writes their results to a single file.
+ *
+ * Each analysis is submitted from its own thread into a FAIR scheduler pool named after it, so short queries
+ * are not queued behind long ones. This requires the session to run with spark.scheduler.mode=FAIR.
+ * The jobs of each analysis are also tagged with a job group named after it, which is how the
+ * {@link QueryMetricsListener} attributes their metrics.
+ */
+public class ReportRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportRunner.class);
+    private static final long METRICS_TIMEOUT_MS = 10000;
+
+    private final SparkSession sparkSession;
+    private final Map<String, Analysis> registry;
+    private final int threads;
+    private final QueryMetricsListener metricsListener;
+
+    /**
+     * Instantiates a new Report runner.
+     *
+     * @param sparkSession    the spark session
+     * @param registry        the analyses that can be run, by name
+     * @param threads         the maximum number of analyses running at the same time
+     * @param metricsListener the listener registered on the session that collects the metrics of each analysis
+     */
+    public ReportRunner(SparkSession sparkSession, Map<String, Analysis> registry, int threads,
+                        QueryMetricsListener metricsListener) {
+        this.sparkSession = sparkSession;
+        this.registry = registry;
+        this.threads = threads;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Runs the selected analyses and waits for all of them.
+     *
+     * @param names the analysis names, empty to run every registered analysis
+     * @return the results, in the order the analyses were selected
+     * @throws IllegalArgumentException if a name is not registered
+     * @throws InterruptedException     if interrupted while waiting for the analyses
+     */
+    public List<ReportResult> run(List<String> names) throws InterruptedException {
+        Map<String, Analysis> selected = new LinkedHashMap<>();
+        for (String name : names.isEmpty() ? new ArrayList<>(registry.keySet()) : names) {
+            Analysis analysis = registry.get(name);
+            if (analysis == null) {
+                throw new IllegalArgumentException("Unknown analysis " + name + ", expected one of " + registry.keySet());
+            }
+            selected.put(name, analysis);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, selected.size())));
+        try {
+            List<Future<ReportResult>> futures = new ArrayList<>();
+            for (Map.Entry<String, Analysis> entry : selected.entrySet()) {
+                futures.add(executor.submit(() -> runOne(entry.getKey(), entry.getValue())));
+            }
+
+            List<ReportResult> results = new ArrayList<>();
+            for (Future<ReportResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the wall time and rows of every result to a file. Typed results are written with their toString.
+     *
+     * @param results the results
+     * @param output  the output file, on any file system supported by Hadoop
+     * @throws IOException if the file cannot be written
+     */
+    public void write(List<ReportResult> results, String output) throws IOException {
+        Path path = new Path(output);
+        try (FSDataOutputStream stream = path.getFileSystem(sparkSession.sparkContext().hadoopConfiguration())
+                                             .create(path, true);
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+            for (ReportResult result : results) {
+                writer.println("== " + result.getName() + " (" + result.getWallTimeMs() + " ms) ==");
+                if (result.getMetrics() != null) {
+                    writer.println(result.getMetrics().values());
+                }
+                if (!result.isSuccessful()) {
+                    writer.println("FAILED: " + result.getError());
+                }
+                for (Object row : result.getRows()) {
+                    writer.println(row instanceof Row ? ((Row) row).mkString("|") : row);
+                }
+                writer.println();
+            }
+        }
+    }
+
+    private ReportResult runOne(String name, Analysis analysis) throws InterruptedException {
+        SparkContext sparkContext = sparkSession.sparkContext();
+        sparkContext.setLocalProperty("spark.scheduler.pool", name);
+        sparkContext.setJobGroup(name, "report " + name, false);
+        long start = System.currentTimeMillis();
+        List<?> rows = null;
+        Exception error = null;
+        try {
+            rows = analysis.run(sparkSession).collectAsList();
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            sparkContext.clearJobGroup();
+            sparkContext.setLocalProperty("spark.scheduler.pool", null);
+        }
+        long wallTime = System.currentTimeMillis() - start;
+
+        QueryMetrics metrics = metricsListener.collect(name, sparkContext.statusTracker().getJobIdsForGroup(name),
+                                                       wallTime, METRICS_TIMEOUT_MS);
+        if (error == null) {
+            LOGGER.info(name + " finished with " + rows.size() + " rows, " + metrics);
+        } else {
+            LOGGER.error(name + " failed after " + wallTime + " ms", error);
+        }
+        return new ReportResult(name, wallTime, rows, error, metrics);
+    }
+}
@@ -0,0 +1,197 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.SparkSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * A CUBE of pessoas over its low cardinality dimensions and income bands, built in a single pass and stored
+ * next to the Parquet tables, so the recurring group-by counts are answered without scanning pessoas.
+ *
+ * The cube carries the stamp of the pessoas table it was built from and is rebuilt when the ingest rewrites
+ * pessoas, that is whenever a source file changes.
+ */
+public final class ResultCube {
+
+    /**
+     * The name of the view holding the cube.
+     */
+    public static final String VIEW = "pessoas_cube";
+
+    /**
+     * The income band of a client: 0 up to 5000, 1 above 5000, 2 above 7000 and 3 above 10000.
+     */
+    public static final String INCOME_BAND = "INCOME_BAND";
+
+    static final List<String> DIMENSIONS = Collections.unmodifiableList(Arrays.asList(
+            "ORIENTACAO_SEXUAL", "SOCIOEMPRESA", "TARGET", "BOLSAFAMILIA", "FUNCIONARIOPUBLICOCASA", INCOME_BAND));
+
+    private static final double[] INCOME_THRESHOLDS = {5000, 7000, 10000};
+    private static final String GROUPING_ID = "grouping_id";
+    private static final String TOTAL = "total";
+    private static final Logger LOGGER = Logger.getLogger(ResultCube.class);
+
+    private ResultCube() {
+    }
+
+    /**
+     * Builds the cube unless it is up to date with the pessoas table, and reads it.
+     *
+     * @param sparkSession the spark session
+     * @param parquetDir   the directory the Parquet ingest writes to
+     * @return the cube, to be registered as {@link #VIEW}
+     * @throws IOException if the stamps cannot be read or written
+     */
+    public static Dataset<Row> materialize(SparkSession sparkSession, String parquetDir) throws IOException {
+        Configuration conf = sparkSession.sparkContext().hadoopConfiguration();
+        Path cube = new Path(parquetDir, VIEW);
+        String stamp = ParquetIngest.readStamp(new Path(parquetDir, ParquetIngest.PESSOAS), conf);
+
+        if (stamp != null && stamp.equals(ParquetIngest.readStamp(cube, conf))) {
+            LOGGER.info(VIEW + " is up to date, skipping build");
+        } else {
+            LOGGER.info("Building " + cube);
+            build(ParquetIngest.readPessoas(sparkSession, parquetDir))
+                    .coalesce(1)
+                    .write()
+                    .mode(SaveMode.Overwrite)
+                    .parquet(cube.toString());
+            ParquetIngest.writeStamp(cube, stamp, conf);
+        }
+        return sparkSession.read().parquet(cube.toString());
+    }
+
+    /**
+     * Builds the cube of a pessoas dataset, to be registered as {@link #VIEW}.
+     *
+     * @param pessoas the pessoas dataset
+     * @return the cube, one row per combination of dimension values and grouping_id
+     */
+    static Dataset<Row> build(Dataset<Row> pessoas) {
+        Column[] dimensions = new Column[DIMENSIONS.size()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = col(DIMENSIONS.get(i));
+        }
+        return pessoas.withColumn(INCOME_BAND, incomeBand())
+                      .cube(dimensions)
+                      .agg(count(lit(1)).as(TOTAL), grouping_id(dimensions).as(GROUPING_ID));
+    }
+
+    /**
+     * Checks if the cube view is registered in the session.
+     *
+     * @param sparkSession the spark session
+     * @return true if queries can be answered from the cube
+     */
+    public static boolean isAvailable(SparkSession sparkSession) {
+        return sparkSession.catalog().tableExists(VIEW);
+    }
+
+    /**
+     * Counts the clients of pessoas from the cube.
+     *
+     * @param sparkSession the spark session
+     * @param incomeAbove  only count clients with ESTIMATIVARENDA above this income band threshold, null for all
+     * @param equalTo      only count clients whose dimensions have these values
+     * @param groupBy      the dimensions to group by
+     * @return one row per group, with the groupBy dimensions and the total, the number of clients in the group
+     * @throws IllegalArgumentException if a column is not a cube dimension or the income is not a band threshold
+     */
+    public static Dataset<Row> countBy(SparkSession sparkSession, Double incomeAbove, Map<String, ?> equalTo,
+                                       String... groupBy) {
+        Set<String> grouped = new HashSet<>(Arrays.asList(groupBy));
+        grouped.addAll(equalTo.keySet());
+        if (incomeAbove != null) {
+            grouped.add(INCOME_BAND);
+        }
+        for (String dimension : grouped) {
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException(dimension + " is not a dimension of " + VIEW);
+            }
+        }
+
+        // grouping_id has one bit per dimension, the first one being the most significant, set when rolled up
+        int groupingId = 0;
+        for (int i = 0; i < DIMENSIONS.size(); i++) {
+            if (!grouped.contains(DIMENSIONS.get(i))) {
+                groupingId |= 1 << (DIMENSIONS.size() - 1 - i);
+            }
+        }
+
+        // A cube written by Spark 3 holds grouping_id as a long, one written by Spark 2.x as an int
+        Dataset<Row> rows = sparkSession.table(VIEW).filter(col(GROUPING_ID).cast("long").equalTo((long) groupingId));
+        for (Map.Entry<String, ?> entry : equalTo.entrySet()) {
+            rows = rows.filter(col(entry.getKey()).equalTo(entry.getValue()));
+        }
+        if (incomeAbove != null) {
+            rows = rows.filter(col(INCOME_BAND).geq(bandAbove(incomeAbove)));
+        }
+
+        List<Column> groupColumns = new ArrayList<>();
+        for (String dimension : groupBy) {
+            groupColumns.add(col(dimension));
+        }
+        // An empty filter still yields one total without groups, which is 0 rather than null
+        return rows.groupBy(groupColumns.toArray(new Column[0])).agg(coalesce(sum(TOTAL), lit(0L)).as(TOTAL));
+    }
+
+    /**
+     * Counts the non null values of a dimension from the cube, like count(column) grouped by that column and others
+     * would: the group where the counted dimension is null has a total of 0.
+     *
+     * @param sparkSession the spark session
+     * @param incomeAbove  only count clients with ESTIMATIVARENDA above this income band threshold, null for all
+     * @param equalTo      only count clients whose dimensions have these values
+     * @param counted      the dimension whose non null values are counted, one of the groupBy dimensions
+     * @param groupBy      the dimensions to group by
+     * @return one row per group, with the groupBy dimensions and the total
+     * @throws IllegalArgumentException if counted is not grouped by, see also
+     *                                  {@link #countBy(SparkSession, Double, Map, String...)}
+     */
+    public static Dataset<Row> countNonNull(SparkSession sparkSession, Double incomeAbove, Map<String, ?> equalTo,
+                                            String counted, String... groupBy) {
+        if (!Arrays.asList(groupBy).contains(counted)) {
+            throw new IllegalArgumentException(counted + " must be one of the grouped dimensions "
+                                                       + Arrays.toString(groupBy));
+        }
+        return countBy(sparkSession, incomeAbove, equalTo, groupBy)
+                .withColumn(TOTAL, when(col(counted).isNull(), lit(0L)).otherwise(col(TOTAL)));
+    }
+
+    /**
+     * Computes the {@link #INCOME_BAND} of a client from ESTIMATIVARENDA.
+     *
+     * @return the income band column
+     */
+    static Column incomeBand() {
+        Column band = lit(0);
+        for (int i = 0; i < INCOME_THRESHOLDS.length; i++) {
+            band = when(col("ESTIMATIVARENDA").gt(INCOME_THRESHOLDS[i]), i + 1).otherwise(band);
+        }
+        return band;
+    }
+
+    private static int bandAbove(double income) {
+        for (int i = 0; i < INCOME_THRESHOLDS.length; i++) {
+            if (INCOME_THRESHOLDS[i] == income) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Income " + income + " is not one of the band thresholds "
+                                                   + Arrays.toString(INCOME_THRESHOLDS));
+    }
+}
@@ -0,0 +1,179 @@
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.NumericType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Looks up the typed schemas declared in {@link SourceTable} and applies them to the raw CSV columns.
+ */
+public final class SchemaRegistry {
+
+    /**
+     * How values that do not match the declared type are handled.
+     */
+    public enum ParseMode {
+        /**
+         * Fail the ingest if any value cannot be parsed.
+         */
+        STRICT,
+        /**
+         * Turn unparseable values into nulls and report how many rows had them.
+         */
+        PERMISSIVE
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaRegistry.class);
+
+    private SchemaRegistry() {
+    }
+
+    /**
+     * Gets the schema of a source table.
+     *
+     * @param table the source table
+     * @return the schema
+     */
+    public static StructType schemaOf(SourceTable table) {
+        return table.schema();
+    }
+
+    /**
+     * Finds the source table that owns a column. The HS_CPF key belongs to every table, so it resolves to BASICO.
+     *
+     * @param column the column name
+     * @return the owning table
+     * @throws IllegalArgumentException if no table declares the column
+     */
+    public static SourceTable tableOf(String column) {
+        for (SourceTable table : SourceTable.values()) {
+            if (fieldOf(table, column) != null) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("No source table declares column " + column);
+    }
+
+    /**
+     * Gets every numeric column of the joined tables, in join order.
+     *
+     * @return the numeric column names
+     */
+    public static List<String> numericColumns() {
+        List<String> columns = new ArrayList<>();
+        for (SourceTable table : SourceTable.values()) {
+            for (StructField field : table.schema().fields()) {
+                if (field.dataType() instanceof NumericType) {
+                    columns.add(field.name());
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Casts the string columns of a CSV read to the table schema.
+     *
+     * Columns are matched by name rather than by position and returned in schema order. A header that does not
+     * match the schema, with undeclared or missing columns, fails the call in STRICT mode; in PERMISSIVE mode it
+     * is logged, undeclared columns are dropped and missing ones are null.
+     *
+     * A row is malformed when a non blank value becomes null after the cast; malformed rows are counted in one
+     * aggregation over the raw input and either fail the call or are logged, depending on the mode. The raw input
+     * is read by that aggregation and again by the typed dataset, so it should be cached to parse the CSV once.
+     *
+     * @param raw   the dataset read from the CSV file with a header
+     * @param table the source table
+     * @param mode  the parse mode
+     * @return the typed dataset
+     * @throws IllegalStateException in STRICT mode, if the header does not match or any row is malformed
+     */
+    public static Dataset<Row> typed(Dataset<Row> raw, SourceTable table, ParseMode mode) {
+        List<String> undeclared = new ArrayList<>();
+        for (String name : raw.columns()) {
+            if (fieldOf(table, name) == null) {
+                undeclared.add(name);
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (StructField field : table.schema().fields()) {
+            if (columnOf(raw, field.name()) == null) {
+                missing.add(field.name());
+            }
+        }
+        if (!undeclared.isEmpty() || !missing.isEmpty()) {
+            String message = table.fileName() + ": header does not match the schema, undeclared columns " + undeclared
+                    + ", missing columns " + missing;
+            if (mode == ParseMode.STRICT) {
+                throw new IllegalStateException(message);
+            }
+            LOGGER.warn(message + "; dropping the undeclared columns and leaving the missing ones null");
+        }
+
+        List<Column> columns = new ArrayList<>();
+        List<Column> malformedCounts = new ArrayList<>();
+        List<String> castColumns = new ArrayList<>();
+        Column anyMalformed = lit(false);
+
+        for (StructField field : table.schema().fields()) {
+            DataType type = field.dataType();
+            String name = columnOf(raw, field.name());
+            if (name == null) {
+                columns.add(lit(null).cast(type).as(field.name()));
+                continue;
+            }
+            columns.add(col(name).cast(type).as(field.name()));
+
+            Column malformed = trim(col(name)).notEqual("").and(col(name).cast(type).isNull());
+            malformedCounts.add(count(when(malformed, true)).as(name));
+            castColumns.add(name);
+            anyMalformed = anyMalformed.or(coalesce(malformed, lit(false)));
+        }
+
+        Row counts = raw.agg(count(when(anyMalformed, true)).as("_rows"), malformedCounts.toArray(new Column[0]))
+                        .first();
+        long malformedRows = counts.getAs("_rows");
+        if (malformedRows > 0) {
+            StringBuilder detail = new StringBuilder();
+            for (String name : castColumns) {
+                long columnCount = counts.getAs(name);
+                if (columnCount > 0) {
+                    detail.append(' ').append(name).append('=').append(columnCount);
+                }
+            }
+            String message = table.fileName() + ": " + malformedRows + " malformed rows," + detail;
+            if (mode == ParseMode.STRICT) {
+                throw new IllegalStateException(message);
+            }
+            LOGGER.warn(message);
+        }
+
+        return raw.select(columns.toArray(new Column[0]));
+    }
+
+    private static String columnOf(Dataset<Row> raw, String column) {
+        for (String name : raw.columns()) {
+            if (name.equalsIgnoreCase(column)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static StructField fieldOf(SourceTable table, String column) {
+        for (StructField field : table.schema().fields()) {
+            if (field.name().equalsIgnoreCase(column)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Finds the HS_CPF values of a table that are heavy enough to make their join task straggle, like duplicated
+ * or placeholder CPFs, by counting the keys of a sample of the table.
+ *
+ * A key is heavy when it holds more rows than the minimum and than an average join partition, since its task then
+ * does at least twice the work of the others.
+ */
+public class SkewDetector {
+
+    /**
+     * The most heavy keys reported per table, the heaviest first.
+     */
+    static final int MAX_KEYS = 1000;
+
+    private static final String ROWS = "rows";
+    private static final String GROUPING_ID = "grouping_id";
+
+    private final double sampleFraction;
+    private final long minRows;
+    private final long seed;
+
+    /**
+     * Instantiates a new Skew detector.
+     *
+     * @param sampleFraction the fraction of each table sampled, in (0, 1]
+     * @param minRows        the minimum rows of a heavy key
+     * @param seed           the seed of the sample
+     * @throws IllegalArgumentException if the fraction is not in (0, 1]
+     */
+    public SkewDetector(double sampleFraction, long minRows, long seed) {
+        if (sampleFraction <= 0 || sampleFraction > 1) {
+            throw new IllegalArgumentException("Skew sample fraction must be in (0, 1], got " + sampleFraction);
+        }
+        this.sampleFraction = sampleFraction;
+        this.minRows = minRows;
+        this.seed = seed;
+    }
+
+    /**
+     * Samples a table and estimates the rows of its heavy keys.
+     *
+     * @param dataset    the table
+     * @param table      the source table it comes from
+     * @param partitions the number of partitions the table is joined in
+     * @return the heavy keys, the heaviest first
+     */
+    public List<SkewedKey> detect(Dataset<Row> dataset, SourceTable table, int partitions) {
+        Dataset<Row> sample = sampleFraction < 1 ? dataset.sample(false, sampleFraction, seed) : dataset;
+
+        // One pass for the sampled rows, in the rolled up row, and the keys that can still be heavy
+        long minSampledRows = Math.max(2, (long) Math.ceil(minRows * sampleFraction));
+        List<Row> frequencies = sample.rollup(col(SourceTable.KEY))
+                                      .agg(count(lit(1)).as(ROWS), grouping_id(col(SourceTable.KEY)).as(GROUPING_ID))
+                                      .filter(col(GROUPING_ID).equalTo(1).or(col(ROWS).geq(minSampledRows)))
+                                      .collectAsList();
+
+        // grouping_id is an int up to Spark 2.x and a long from Spark 3
+        long sampledRows = 0;
+        for (Row row : frequencies) {
+            if (((Number) row.get(2)).intValue() == 1) {
+                sampledRows = row.getLong(1);
+            }
+        }
+        double threshold = Math.max(minRows, sampledRows / sampleFraction / partitions);
+
+        List<SkewedKey> keys = new ArrayList<>();
+        for (Row row : frequencies) {
+            long estimatedRows = Math.round(row.getLong(1) / sampleFraction);
+            if (((Number) row.get(2)).intValue() == 0 && estimatedRows > threshold) {
+                keys.add(new SkewedKey(table.fileName(), row.getString(0), estimatedRows));
+            }
+        }
+        keys.sort(Comparator.comparingLong(SkewedKey::getEstimatedRows).reversed());
+        return keys.size() > MAX_KEYS ? new ArrayList<>(keys.subList(0, MAX_KEYS)) : keys;
+    }
+}
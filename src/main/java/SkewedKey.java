@@ -0,0 +1,39 @@
+/**
+ * An HS_CPF value appearing in so many rows of a source table that the task joining it would straggle.
+ */
+public class SkewedKey {
+
+    private final String source;
+    private final String key;
+    private final long estimatedRows;
+
+    /**
+     * Instantiates a new Skewed key.
+     *
+     * @param source        the file name of the source table
+     * @param key           the HS_CPF value
+     * @param estimatedRows the rows of the table with this key, estimated from a sample
+     */
+    public SkewedKey(String source, String key, long estimatedRows) {
+        this.source = source;
+        this.key = key;
+        this.estimatedRows = estimatedRows;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    @Override
+    public String toString() {
+        return source + " " + SourceTable.KEY + "=" + key + ": ~" + estimatedRows + " rows";
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * The number of proposals with a SOCIOEMPRESA and TARGET.
+ */
+public class SocioTargetCount {
+
+    private Integer socioEmpresa;
+    private Double target;
+    private long total;
+
+    public Integer getSocioEmpresa() {
+        return socioEmpresa;
+    }
+
+    public void setSocioEmpresa(Integer socioEmpresa) {
+        this.socioEmpresa = socioEmpresa;
+    }
+
+    public Double getTarget() {
+        return target;
+    }
+
+    public void setTarget(Double target) {
+        this.target = target;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return socioEmpresa + "|" + target + "|" + total;
+    }
+}
@@ -0,0 +1,136 @@
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.Arrays;
+
+/**
+ * The source tables of the analysis, one per ommlbd_*.csv file, with their typed schema.
+ *
+ * Schemas are looked up and applied through {@link SchemaRegistry}. Each table also has a bean mirroring its
+ * schema, like {@link Basico}, for typed access through {@link Projections}; its column constants are checked
+ * against the schema with {@link #column(String)}.
+ */
+public enum SourceTable {
+
+    BASICO("ommlbd_basico", new StructType()
+            .add("HS_CPF", DataTypes.StringType, false)
+            .add("TARGET", DataTypes.DoubleType)
+            .add("ORIENTACAO_SEXUAL", DataTypes.StringType)
+            .add("TEMPOCPF", DataTypes.IntegerType)
+            .add("DISTCENTROCIDADE", DataTypes.DoubleType)
+            .add("DISTZONARISCO", DataTypes.DoubleType)
+            .add("QTDENDERECO", DataTypes.IntegerType)
+            .add("QTDEMAIL", DataTypes.IntegerType)
+            .add("QTDCELULAR", DataTypes.IntegerType)
+            .add("CELULARPROCON", DataTypes.IntegerType)
+            .add("QTDFONEFIXO", DataTypes.IntegerType)
+            .add("TELFIXOPROCON", DataTypes.IntegerType)),
+
+    EMPRESARIAL("ommlbd_empresarial", new StructType()
+            .add("HS_CPF", DataTypes.StringType, false)
+            .add("INDICEEMPREGO", DataTypes.DoubleType)
+            .add("PORTEEMPREGADOR", DataTypes.DoubleType)
+            .add("SOCIOEMPRESA", DataTypes.IntegerType)
+            .add("FUNCIONARIOPUBLICO", DataTypes.IntegerType)
+            .add("SEGMENTACAO", DataTypes.DoubleType)
+            .add("SEGMENTACAOCOBRANCA", DataTypes.DoubleType)
+            .add("SEGMENTACAOECOM", DataTypes.DoubleType)
+            .add("SEGMENTACAOFIN", DataTypes.DoubleType)
+            .add("SEGMENTACAOTELECOM", DataTypes.DoubleType)),
+
+    FAMILIAR("ommlbd_familiar", new StructType()
+            .add("HS_CPF", DataTypes.StringType, false)
+            .add("QTDPESSOASCASA", DataTypes.IntegerType)
+            .add("MENORRENDACASA", DataTypes.DoubleType)
+            .add("MAIORRENDACASA", DataTypes.DoubleType)
+            .add("MEDIARENDACASA", DataTypes.DoubleType)
+            .add("MAIORIDADECASA", DataTypes.IntegerType)
+            .add("MENORIDADECASA", DataTypes.IntegerType)
+            .add("MEDIAIDADECASA", DataTypes.DoubleType)
+            .add("INDICMENORDEIDADE", DataTypes.IntegerType)
+            .add("COBRANCABAIXOCASA", DataTypes.IntegerType)
+            .add("COBRANCAMEDIOCASA", DataTypes.IntegerType)
+            .add("COBRANCAALTACASA", DataTypes.IntegerType)
+            .add("SEGMENTACAOFINBAIXACASA", DataTypes.IntegerType)
+            .add("SEGMENTACAOFINMEDIACASA", DataTypes.IntegerType)
+            .add("SEGMENTACAOALTACASA", DataTypes.IntegerType)
+            .add("BOLSAFAMILIACASA", DataTypes.IntegerType)
+            .add("FUNCIONARIOPUBLICOCASA", DataTypes.IntegerType)),
+
+    REGIONAL("ommlbd_regional", new StructType()
+            .add("HS_CPF", DataTypes.StringType, false)
+            .add("IDADEMEDIACEP", DataTypes.DoubleType)
+            .add("PERCENTMASCCEP", DataTypes.DoubleType)
+            .add("PERCENTFEMCEP", DataTypes.DoubleType)
+            .add("PERCENTANALFABETOCEP", DataTypes.DoubleType)
+            .add("PERCENTPRIMARIOCEP", DataTypes.DoubleType)
+            .add("PERCENTFUNDAMENTALCEP", DataTypes.DoubleType)
+            .add("PERCENTMEDIOCEP", DataTypes.DoubleType)
+            .add("PERCENTSUPERIORCEP", DataTypes.DoubleType)
+            .add("PERCENTMESTRADOCEP", DataTypes.DoubleType)
+            .add("PERCENTDOUTORADOCEP", DataTypes.DoubleType)
+            .add("PERCENTBOLSAFAMILIACEP", DataTypes.DoubleType)
+            .add("PERCENTFUNCIONARIOPUBLICOCEP", DataTypes.DoubleType)
+            .add("MEDIARENDACEP", DataTypes.DoubleType)
+            .add("PIBMUNICIPIO", DataTypes.DoubleType)
+            .add("QTDUTILITARIOMUNICIPIO", DataTypes.IntegerType)
+            .add("QTDAUTOMOVELMUNICIPIO", DataTypes.IntegerType)
+            .add("QTDCAMINHAOMUNICIPIO", DataTypes.IntegerType)
+            .add("QTDCAMINHONETEMUNICIPIO", DataTypes.IntegerType)
+            .add("QTDMOTOMUNICIPIO", DataTypes.IntegerType)
+            .add("PERCENTPOPZONAURBANA", DataTypes.DoubleType)
+            .add("IDHMUNICIPIO", DataTypes.DoubleType)),
+
+    RENDA("ommlbd_renda", new StructType()
+            .add("HS_CPF", DataTypes.StringType, false)
+            .add("ESTIMATIVARENDA", DataTypes.DoubleType)
+            .add("QTDDECLARACAOISENTA", DataTypes.IntegerType)
+            .add("QTDDECLARACAO10", DataTypes.IntegerType)
+            .add("QTDDECLARACAOREST10", DataTypes.IntegerType)
+            .add("QTDDECLARACAOPAGAR10", DataTypes.IntegerType)
+            .add("RESTITUICAOAGENCIAALTARENDA", DataTypes.IntegerType)
+            .add("BOLSAFAMILIA", DataTypes.IntegerType)
+            .add("ANOSULTIMARESTITUICAO", DataTypes.IntegerType)
+            .add("ANOSULTIMADECLARACAO", DataTypes.IntegerType)
+            .add("ANOSULTIMADECLARACAOPAGAR", DataTypes.IntegerType));
+
+    /**
+     * The join key shared by every source table.
+     */
+    public static final String KEY = "HS_CPF";
+
+    private final String fileName;
+    private final StructType schema;
+
+    SourceTable(String fileName, StructType schema) {
+        this.fileName = fileName;
+        this.schema = schema;
+    }
+
+    /**
+     * Gets the file name of the table, without extension.
+     *
+     * @return the file name
+     */
+    public String fileName() {
+        return fileName;
+    }
+
+    /**
+     * Checks a column is part of the table.
+     *
+     * @param name the column name
+     * @return the name
+     * @throws IllegalArgumentException if the schema has no such column
+     */
+    public String column(String name) {
+        if (!Arrays.asList(schema.fieldNames()).contains(name)) {
+            throw new IllegalArgumentException(fileName + " has no column " + name);
+        }
+        return name;
+    }
+
+    public StructType schema() {
+        return schema;
+    }
+}
@@ -0,0 +1,107 @@
+import org.apache.log4j.Logger;
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerJobStart;
+import org.apache.spark.scheduler.SparkListenerStageCompleted;
+import org.apache.spark.scheduler.StageInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs the shuffle, spill and GC metrics of every completed stage and job, and keeps running totals.
+ *
+ * Spark delivers listener events asynchronously, so totals are only complete once the job end event
+ * of the job of interest has been seen, see {@link #isJobCompleted(int)}.
+ */
+public class StageMetricsListener extends SparkListener {
+
+    private static final Logger LOGGER = Logger.getLogger(StageMetricsListener.class);
+
+    private final Map<Integer, Integer> jobOfStage = new ConcurrentHashMap<>();
+    private final Map<Integer, long[]> jobTotals = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> completedJobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong shuffleBytesWritten = new AtomicLong();
+    private final AtomicLong shuffleBytesRead = new AtomicLong();
+    private final AtomicLong bytesSpilled = new AtomicLong();
+    private final AtomicLong gcTimeMs = new AtomicLong();
+
+    @Override
+    public void onJobStart(SparkListenerJobStart jobStart) {
+        for (StageInfo stage : scala.collection.JavaConversions.seqAsJavaList(jobStart.stageInfos())) {
+            jobOfStage.put(stage.stageId(), jobStart.jobId());
+        }
+        jobTotals.put(jobStart.jobId(), new long[4]);
+    }
+
+    @Override
+    public void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
+        StageInfo stage = stageCompleted.stageInfo();
+        TaskMetrics metrics = stage.taskMetrics();
+        if (metrics == null) {
+            return;
+        }
+
+        long written = metrics.shuffleWriteMetrics().bytesWritten();
+        long read = metrics.shuffleReadMetrics().totalBytesRead();
+        long spilled = metrics.memoryBytesSpilled() + metrics.diskBytesSpilled();
+        long gcTime = metrics.jvmGCTime();
+
+        shuffleBytesWritten.addAndGet(written);
+        shuffleBytesRead.addAndGet(read);
+        bytesSpilled.addAndGet(spilled);
+        gcTimeMs.addAndGet(gcTime);
+
+        Integer jobId = jobOfStage.get(stage.stageId());
+        long[] totals = jobId == null ? null : jobTotals.get(jobId);
+        if (totals != null) {
+            totals[0] += written;
+            totals[1] += read;
+            totals[2] += spilled;
+            totals[3] += gcTime;
+        }
+
+        LOGGER.info("Stage " + stage.stageId() + " (" + stage.name() + "): shuffle write " + written
+                            + " bytes, shuffle read " + read + " bytes, spill " + spilled + " bytes, GC " + gcTime + " ms");
+    }
+
+    @Override
+    public void onJobEnd(SparkListenerJobEnd jobEnd) {
+        long[] totals = jobTotals.remove(jobEnd.jobId());
+        jobOfStage.values().removeIf(jobId -> jobId == jobEnd.jobId());
+        completedJobs.put(jobEnd.jobId(), true);
+        if (totals != null) {
+            LOGGER.info("Job " + jobEnd.jobId() + ": shuffle write " + totals[0] + " bytes, shuffle read "
+                                + totals[1] + " bytes, spill " + totals[2] + " bytes, GC " + totals[3] + " ms");
+        }
+    }
+
+    /**
+     * Checks if the end of a job has been processed by this listener.
+     *
+     * @param jobId the job id
+     * @return true if the job metrics are included in the totals
+     */
+    public boolean isJobCompleted(int jobId) {
+        return completedJobs.containsKey(jobId);
+    }
+
+    public long getShuffleBytesWritten() {
+        return shuffleBytesWritten.get();
+    }
+
+    public long getShuffleBytesRead() {
+        return shuffleBytesRead.get();
+    }
+
+    public long getBytesSpilled() {
+        return bytesSpilled.get();
+    }
+
+    public long getGcTimeMs() {
+        return gcTimeMs.get();
+    }
+}
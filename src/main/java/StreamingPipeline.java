@@ -0,0 +1,256 @@
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.streaming.OutputMode;
+import org.apache.spark.sql.streaming.StreamingQuery;
+import org.apache.spark.sql.streaming.Trigger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Keeps the exercise aggregates up to date as new proposal files are dropped, using Structured Streaming.
+ *
+ * New proposals are basico-shaped files. They are cleaned with the same {@link CleanupRules} as the batch pipeline,
+ * joined with the other source tables from the Parquet ingest, and aggregated with checkpointed state:
+ *
+ * stream_orientacao: clients by ORIENTACAO_SEXUAL (exercise 1)
+ * stream_emails: min and max QTDEMAIL (exercise 2)
+ * stream_socio_target: SOCIOEMPRESA x TARGET for incomes above 5000 (exercise 8)
+ * stream_unmatched: proposals left out of the aggregates because a companion row is missing or rejected
+ *
+ * The streamed aggregates are kept in driver memory sinks. {@link #publish()} merges them with the same aggregates
+ * over the existing pessoas table and writes each one as JSON under the output directory, where dashboards read it;
+ * a snapshot is replaced as a whole, by renaming it into place. This assumes dropped proposals are not also in the
+ * batch CSV files, which would count them twice.
+ *
+ * Spark only supports joining a stream with static tables here. The companion empresarial, familiar, regional and
+ * renda rows are read when the queries start, so {@link #restart()} must be called after the ingest rebuilds them;
+ * the checkpointed state carries over. A proposal whose companion rows are not there when it is processed is
+ * counted in stream_unmatched and logged, not retried. CSV drops are read by position with the BASICO schema;
+ * Parquet drops are matched by column name.
+ */
+public class StreamingPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(StreamingPipeline.class);
+    private static final String UNMATCHED = "stream_unmatched";
+
+    private final SparkSession sparkSession;
+    private final String parquetDir;
+    private final String checkpointDir;
+    private final String outputDir;
+    private final String triggerInterval;
+    private final Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+    private final Map<String, StreamingQuery> queries = new LinkedHashMap<>();
+    private final Map<String, Dataset<Row>> baselines = new LinkedHashMap<>();
+    private final Map<String, Dataset<Row>> lastStreamed = new LinkedHashMap<>();
+    private String dropDir;
+    private String format;
+    private long unmatched;
+
+    /**
+     * Instantiates a new Streaming pipeline.
+     *
+     * @param sparkSession    the spark session
+     * @param parquetDir      the directory the Parquet ingest writes to
+     * @param checkpointDir   the directory holding the checkpointed state of every query
+     * @param outputDir       the directory the merged aggregates are published to
+     * @param triggerInterval the interval between micro batches, e.g. "5 seconds"
+     */
+    public StreamingPipeline(SparkSession sparkSession, String parquetDir, String checkpointDir, String outputDir,
+                             String triggerInterval) {
+        this.sparkSession = sparkSession;
+        this.parquetDir = parquetDir;
+        this.checkpointDir = checkpointDir;
+        this.outputDir = outputDir;
+        this.triggerInterval = triggerInterval;
+
+        aggregates.put("stream_orientacao", new Aggregate(
+                pessoas -> pessoas.groupBy("ORIENTACAO_SEXUAL").agg(count("ORIENTACAO_SEXUAL").as("total")),
+                merged -> merged.groupBy("ORIENTACAO_SEXUAL").agg(sum("total").as("total"))));
+        aggregates.put("stream_emails", new Aggregate(
+                pessoas -> pessoas.agg(min("QTDEMAIL").as("min_qtdemail"), max("QTDEMAIL").as("max_qtdemail")),
+                merged -> merged.agg(min("min_qtdemail").as("min_qtdemail"), max("max_qtdemail").as("max_qtdemail"))));
+        aggregates.put("stream_socio_target", new Aggregate(
+                pessoas -> pessoas.filter(col("ESTIMATIVARENDA").gt(5000))
+                                  .groupBy("SOCIOEMPRESA", "TARGET")
+                                  .agg(count("TARGET").as("total")),
+                merged -> merged.groupBy("SOCIOEMPRESA", "TARGET").agg(sum("total").as("total"))));
+    }
+
+    /**
+     * Starts the streaming queries.
+     *
+     * @param dropDir the directory new proposal files are dropped into
+     * @param format  the format of the dropped files, csv or parquet
+     * @return the started queries
+     */
+    public List<StreamingQuery> start(String dropDir, String format) {
+        this.dropDir = dropDir;
+        this.format = format;
+
+        // The existing pessoas rows the streamed aggregates are added to, small enough to keep in memory
+        baselines.clear();
+        Dataset<Row> pessoas = ParquetIngest.readPessoas(sparkSession, parquetDir);
+        for (Map.Entry<String, Aggregate> aggregate : aggregates.entrySet()) {
+            baselines.put(aggregate.getKey(), aggregate.getValue().aggregate.apply(pessoas).cache());
+        }
+
+        Dataset<Row> proposals = sparkSession.readStream()
+                                             .schema(SchemaRegistry.schemaOf(SourceTable.BASICO))
+                                             .option("header", true)
+                                             .format(format)
+                                             .load(dropDir);
+
+        // The cleanup rules are applied per table, so rejected rows never reach the join. The joins are outer so
+        // proposals without companion rows can be counted instead of silently dropped
+        Dataset<Row> joined = CleanupRules.accept(proposals, CleanupRules.rulesFor(SourceTable.BASICO));
+        Column matched = lit(true);
+        List<String> markers = new ArrayList<>();
+        for (SourceTable table : SourceTable.values()) {
+            if (table != SourceTable.BASICO) {
+                String marker = "_MATCHED_" + table.name();
+                Dataset<Row> dimension = CleanupRules.accept(ParquetIngest.read(sparkSession, parquetDir, table),
+                                                             CleanupRules.rulesFor(table))
+                                                     .withColumn(marker, lit(true));
+                joined = joined.join(dimension, scalaSeq(SourceTable.KEY), "left_outer");
+                matched = matched.and(col(marker).isNotNull());
+                markers.add(marker);
+            }
+        }
+        Dataset<Row> accepted = joined.filter(matched).drop(markers.toArray(new String[0]));
+
+        for (Map.Entry<String, Aggregate> aggregate : aggregates.entrySet()) {
+            queries.put(aggregate.getKey(), start(aggregate.getKey(), aggregate.getValue().aggregate.apply(accepted)));
+        }
+        queries.put(UNMATCHED, start(UNMATCHED, joined.filter(not(matched)).agg(count(lit(1)).as("proposals"))));
+        return new ArrayList<>(queries.values());
+    }
+
+    /**
+     * Stops the queries and starts them again from their checkpoints, so they join with the companion tables and
+     * add to the pessoas table as they are now. Called after the ingest rebuilt the tables.
+     *
+     * @return the started queries
+     */
+    public List<StreamingQuery> restart() {
+        LOGGER.info("Restarting the streaming queries over the re-ingested tables");
+        // A restarted query only refills its memory sink with its next batch, so the streamed aggregates published
+        // so far are kept on the driver until then
+        for (Map.Entry<String, StreamingQuery> query : queries.entrySet()) {
+            if (query.getValue().lastProgress() != null) {
+                Dataset<Row> streamed = sparkSession.table(query.getKey());
+                lastStreamed.put(query.getKey(), sparkSession.createDataFrame(streamed.collectAsList(),
+                                                                              streamed.schema()));
+            }
+        }
+        stop();
+        // Stopped queries count as terminated, which would end the caller's awaitAnyTermination loop
+        sparkSession.streams().resetTerminated();
+        return start(dropDir, format);
+    }
+
+    /**
+     * Stops the queries and drops the baselines.
+     */
+    public void stop() {
+        for (StreamingQuery query : queries.values()) {
+            query.stop();
+        }
+        queries.clear();
+        for (Dataset<Row> baseline : baselines.values()) {
+            baseline.unpersist();
+        }
+    }
+
+    /**
+     * Writes every aggregate, merged with its pessoas baseline, as JSON to the output directory. Until its query
+     * completed a batch after a restart, an aggregate is published from its refreshed baseline and the streamed
+     * aggregate published before the restart, or from the baseline alone when nothing was streamed yet.
+     *
+     * @throws IOException if a snapshot cannot be moved into place
+     */
+    public void publish() throws IOException {
+        FileSystem fs = new Path(outputDir).getFileSystem(sparkSession.sparkContext().hadoopConfiguration());
+        for (Map.Entry<String, StreamingQuery> query : queries.entrySet()) {
+            String name = query.getKey();
+            Dataset<Row> streamed;
+            if (query.getValue().lastProgress() != null) {
+                lastStreamed.remove(name);
+                streamed = sparkSession.table(name);
+            } else {
+                streamed = lastStreamed.get(name);
+            }
+            if (streamed == null && !aggregates.containsKey(name)) {
+                continue;
+            }
+
+            Dataset<Row> merged;
+            if (!aggregates.containsKey(name)) {
+                merged = streamed;
+            } else if (streamed == null) {
+                merged = aggregates.get(name).merge.apply(baselines.get(name));
+            } else {
+                merged = aggregates.get(name).merge.apply(streamed.union(baselines.get(name)));
+            }
+            if (UNMATCHED.equals(name)) {
+                Row row = streamed.first();
+                long count = row.isNullAt(0) ? 0 : row.getLong(0);
+                if (count > unmatched) {
+                    LOGGER.warn((count - unmatched) + " new proposals had no companion rows and were left out, "
+                                        + count + " in total");
+                    unmatched = count;
+                }
+            }
+
+            Path target = new Path(outputDir, name);
+            Path staging = new Path(outputDir, "_" + name + ".tmp");
+            merged.coalesce(1).write().mode(SaveMode.Overwrite).json(staging.toString());
+            fs.delete(target, true);
+            if (!fs.rename(staging, target)) {
+                throw new IOException("Could not move " + staging + " to " + target);
+            }
+        }
+    }
+
+    private StreamingQuery start(String name, Dataset<Row> aggregate) {
+        LOGGER.info("Starting " + name + ", checkpointing to " + new Path(checkpointDir, name));
+        return aggregate.writeStream()
+                        .queryName(name)
+                        .outputMode(OutputMode.Complete())
+                        .format("memory")
+                        .option("checkpointLocation", new Path(checkpointDir, name).toString())
+                        .trigger(Trigger.ProcessingTime(triggerInterval))
+                        .start();
+    }
+
+    private static scala.collection.Seq<String> scalaSeq(String... columns) {
+        return scala.collection.JavaConverters.asScalaBufferConverter(Arrays.asList(columns)).asScala();
+    }
+
+    /**
+     * An aggregate of pessoas, and how partial results of it are merged.
+     */
+    private static final class Aggregate {
+
+        private final Function<Dataset<Row>, Dataset<Row>> aggregate;
+        private final Function<Dataset<Row>, Dataset<Row>> merge;
+
+        private Aggregate(Function<Dataset<Row>, Dataset<Row>> aggregate, Function<Dataset<Row>, Dataset<Row>> merge) {
+            this.aggregate = aggregate;
+            this.merge = merge;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.expressions.Window;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * The exercises as typed queries over pessoas.
+ *
+ * Each query first views pessoas through the bean of the source table it reads, like {@link Renda}, or through
+ * {@link Pessoa} when it reads several tables, see {@link Projections}. Columns are referred to by the constants of
+ * those beans, which are checked against the table schemas, so a misspelt column does not compile and a column
+ * missing from its table fails when the class is first used. Results are converted to result beans, so a query
+ * whose result does not fit its bean fails when it is built, before any data is read. Filters and aggregations
+ * stay column expressions over the typed datasets, so Spark only reads the columns a query uses and only the
+ * result objects are deserialized.
+ *
+ * Grouped counts count the non null values of a column, so the group of clients without a value counts 0; the cube
+ * answers use {@link ResultCube#countNonNull} to match. Single counts are a column named total.
+ */
+public final class TypedAnalyses {
+
+    private static final String TOTAL = "total";
+
+    private TypedAnalyses() {
+    }
+
+    /**
+     * Number of clients by gender orientation.
+     *
+     * @param pessoas the pessoas dataset
+     * @return one count per orientation
+     */
+    public static Dataset<OrientationCount> clientsByOrientation(Dataset<Row> pessoas) {
+        return Projections.project(pessoas, Basico.class)
+                          .groupBy(col(Basico.ORIENTACAO_SEXUAL).as("orientacaoSexual"))
+                          .agg(count(Basico.ORIENTACAO_SEXUAL).as(TOTAL))
+                          .as(Encoders.bean(OrientationCount.class));
+    }
+
+    /**
+     * The min and max QTDEMAIL.
+     *
+     * @param pessoas the pessoas dataset
+     * @return a single range
+     */
+    public static Dataset<EmailRange> emailRange(Dataset<Row> pessoas) {
+        return Projections.project(pessoas, Basico.class)
+                          .agg(min(Basico.QTDEMAIL).as("minQtdEmail"), max(Basico.QTDEMAIL).as("maxQtdEmail"))
+                          .as(Encoders.bean(EmailRange.class));
+    }
+
+    /**
+     * Number of proposals whose client has an estimated income bigger than a value.
+     *
+     * @param pessoas the pessoas dataset
+     * @param income  the income
+     * @return a single count
+     */
+    public static Dataset<Long> proposalsWithIncomeAbove(Dataset<Row> pessoas, double income) {
+        return countWhere(Projections.project(pessoas, Renda.class), col(Renda.ESTIMATIVARENDA).gt(income));
+    }
+
+    /**
+     * Number of clients that are from Bolsa familia.
+     *
+     * @param pessoas the pessoas dataset
+     * @return a single count
+     */
+    public static Dataset<Long> bolsaFamiliaClients(Dataset<Row> pessoas) {
+        return countWhere(Projections.project(pessoas, Renda.class), col(Renda.BOLSAFAMILIA).equalTo(1));
+    }
+
+    /**
+     * Percentage of proposals whose client lives with a public worker, in a single scan.
+     *
+     * @param pessoas the pessoas dataset
+     * @return a single share
+     */
+    public static Dataset<PublicWorkerShare> publicWorkerShare(Dataset<Row> pessoas) {
+        Column publicWorkers = count(when(col(Familiar.FUNCIONARIOPUBLICOCASA).equalTo(1), 1));
+        Column total = count(Familiar.FUNCIONARIOPUBLICOCASA);
+        return Projections.project(pessoas, Familiar.class)
+                          .agg(total.as(TOTAL), publicWorkers.as("publicWorkers"),
+                               lit(100.0).multiply(publicWorkers).divide(total).as("percentage"))
+                          .as(Encoders.bean(PublicWorkerShare.class));
+    }
+
+    /**
+     * Percentage of clients per IDH bucket, in a single scan.
+     *
+     * @param pessoas     the pessoas dataset
+     * @param bucketWidth the width of each IDH bucket
+     * @return one row per non empty bucket, ordered by bucketStart
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    public static Dataset<IdhBucket> percentagePerIDH(Dataset<Row> pessoas, double bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("IDH bucket width must be positive, got " + bucketWidth);
+        }
+        Column bucket = col("bucket");
+        return Projections.project(pessoas, Regional.class)
+                          .select(floor(col(Regional.IDHMUNICIPIO).divide(bucketWidth)).as("bucket"))
+                          .groupBy(bucket)
+                          .agg(count(lit(1)).as(TOTAL))
+                          .select(bucket.multiply(bucketWidth).as("bucketStart"),
+                                  bucket.plus(1).multiply(bucketWidth).as("bucketEnd"),
+                                  col(TOTAL),
+                                  lit(100.0).multiply(col(TOTAL)).divide(sum(TOTAL).over(Window.partitionBy()))
+                                            .as("percentage"))
+                          .orderBy("bucketStart")
+                          .as(Encoders.bean(IdhBucket.class));
+    }
+
+    /**
+     * Number of clients that live near a danger zone and have an income bigger than R$7k.
+     *
+     * @param pessoas the pessoas dataset
+     * @return a single count
+     */
+    public static Dataset<Long> nearRiskZoneWithIncomeAbove7000(Dataset<Row> pessoas) {
+        return countWhere(Projections.pessoas(pessoas),
+                          Projections.column(SourceTable.BASICO, Basico.DISTZONARISCO).lt(5)
+                                     .and(Projections.column(SourceTable.RENDA, Renda.ESTIMATIVARENDA).gt(7000)));
+    }
+
+    /**
+     * Number of proposals of clients with an income bigger than 5k, by SOCIOEMPRESA and TARGET.
+     *
+     * @param pessoas the pessoas dataset
+     * @return one count per SOCIOEMPRESA and TARGET
+     */
+    public static Dataset<SocioTargetCount> socioTargetAbove5000(Dataset<Row> pessoas) {
+        Column socioEmpresa = Projections.column(SourceTable.EMPRESARIAL, Empresarial.SOCIOEMPRESA);
+        Column target = Projections.column(SourceTable.BASICO, Basico.TARGET);
+        return Projections.pessoas(pessoas)
+                          .filter(Projections.column(SourceTable.RENDA, Renda.ESTIMATIVARENDA).gt(5000))
+                          .groupBy(socioEmpresa.as("socioEmpresa"), target.as("target"))
+                          .agg(count(target).as(TOTAL))
+                          .as(Encoders.bean(SocioTargetCount.class));
+    }
+
+    private static Dataset<Long> countWhere(Dataset<?> projection, Column predicate) {
+        return projection.filter(predicate).agg(count(lit(1)).as(TOTAL)).as(Encoders.LONG());
+    }
+}
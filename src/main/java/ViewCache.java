@@ -0,0 +1,126 @@
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.execution.QueryExecution;
+import org.apache.spark.sql.util.QueryExecutionListener;
+import org.apache.spark.storage.RDDInfo;
+import org.apache.spark.storage.StorageLevel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registers temp views backed by persisted datasets, so the queries on a view share one materialization.
+ *
+ * Every action run in the session is counted as a cache hit when its plan reads from an in-memory relation.
+ * Closing the cache unpersists the views and logs the hit and size statistics. The OFF_HEAP level also needs
+ * spark.memory.offHeap.enabled and spark.memory.offHeap.size to be set on the session.
+ */
+public class ViewCache implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewCache.class);
+
+    private final SparkSession sparkSession;
+    private final StorageLevel storageLevel;
+    private final boolean eager;
+    private final Map<String, Dataset<Row>> views = new LinkedHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final QueryExecutionListener hitListener = new QueryExecutionListener() {
+        @Override
+        public void onSuccess(String funcName, QueryExecution qe, long durationNs) {
+            if (qe.executedPlan().toString().contains("InMemoryTableScan")) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onFailure(String funcName, QueryExecution qe, Exception exception) {
+        }
+    };
+
+    /**
+     * Instantiates a new View cache.
+     *
+     * @param sparkSession the spark session
+     * @param storageLevel the storage level of the cached views, NONE to register them without caching
+     * @param eager        whether views are materialized when registered instead of on first use
+     */
+    public ViewCache(SparkSession sparkSession, StorageLevel storageLevel, boolean eager) {
+        this.sparkSession = sparkSession;
+        this.storageLevel = storageLevel;
+        this.eager = eager;
+        sparkSession.listenerManager().register(hitListener);
+    }
+
+    /**
+     * Persists a dataset and registers it as a temp view.
+     *
+     * @param view    the view name
+     * @param dataset the dataset
+     * @return the persisted dataset
+     */
+    public Dataset<Row> register(String view, Dataset<Row> dataset) {
+        return register(view, dataset, eager);
+    }
+
+    /**
+     * Persists a dataset and registers it as a temp view, overriding whether it is materialized right away.
+     *
+     * @param view    the view name
+     * @param dataset the dataset
+     * @param eager   whether the view is materialized now instead of on first use
+     * @return the persisted dataset
+     */
+    public Dataset<Row> register(String view, Dataset<Row> dataset, boolean eager) {
+        Dataset<Row> cached = StorageLevel.NONE().equals(storageLevel) ? dataset : dataset.persist(storageLevel);
+        cached.createOrReplaceTempView(view);
+        views.put(view, cached);
+
+        if (eager && !StorageLevel.NONE().equals(storageLevel)) {
+            long start = System.currentTimeMillis();
+            long rows = cached.count();
+            LOGGER.info("Materialized " + view + " (" + rows + " rows) with " + storageLevel.description()
+                                + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return cached;
+    }
+
+    /**
+     * Logs the hit ratio and the memory and disk size of every cached dataset.
+     */
+    public void logStatistics() {
+        LOGGER.info("Cache hits: " + hits.get() + ", misses: " + misses.get());
+        for (RDDInfo info : sparkSession.sparkContext().getRDDStorageInfo()) {
+            LOGGER.info(info.name() + ": " + info.numCachedPartitions() + "/" + info.numPartitions()
+                                + " partitions cached, memory " + info.memSize() + " bytes, disk " + info.diskSize()
+                                + " bytes, " + info.storageLevel().description());
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Logs the statistics, then drops and unpersists every registered view.
+     */
+    @Override
+    public void close() {
+        logStatistics();
+        sparkSession.listenerManager().unregister(hitListener);
+        for (Map.Entry<String, Dataset<Row>> entry : views.entrySet()) {
+            sparkSession.catalog().dropTempView(entry.getKey());
+            entry.getValue().unpersist(true);
+        }
+        views.clear();
+    }
+}
@@ -0,0 +1,122 @@
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.StructType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.apache.spark.sql.functions.col;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the reason {@link CleanupRules} reports for a rejected renda row: the first failing rule in
+ * {@link CleanupRules#RULES} order, a null value failing its rule.
+ */
+public class CleanupRulesTest {
+
+    private static final String ZEROS = "00000000000";
+
+    private static SparkSession sparkSession;
+    private static Map<String, String> reasons;
+
+    @BeforeClass
+    public static void tagRenda() {
+        sparkSession = SparkSession.builder().master("local[2]").appName("CleanupRulesTest")
+                                   .config("spark.sql.shuffle.partitions", 2)
+                                   .getOrCreate();
+        Dataset<Row> renda = renda(
+                renda("1", 3000.0, 1),
+                renda("2", 3000.0, 0),
+                renda("3", 3000.0, null),
+                renda("4", null, 1),
+                renda(ZEROS, 0.0, 0));
+        Dataset<Row> tagged = renda.withColumn(CleanupRules.REASON,
+                                               CleanupRules.rejectReason(CleanupRules.rulesFor(SourceTable.RENDA)));
+
+        reasons = new TreeMap<>();
+        for (Row row : tagged.select(SourceTable.KEY, CleanupRules.REASON).collectAsList()) {
+            reasons.put(row.getString(0), row.getString(1));
+        }
+    }
+
+    @AfterClass
+    public static void stopSession() {
+        sparkSession.stop();
+    }
+
+    @Test
+    public void acceptedRowHasNoReason() {
+        assertTrue(reasons.containsKey("1"));
+        assertNull(reasons.get("1"));
+    }
+
+    @Test
+    public void failingRuleIsReported() {
+        assertEquals("QTDDECLARACAO10_NOT_POSITIVE", reasons.get("2"));
+    }
+
+    @Test
+    public void nullValueIsRejected() {
+        assertEquals("QTDDECLARACAO10_NOT_POSITIVE", reasons.get("3"));
+        assertEquals("ESTIMATIVARENDA_NOT_POSITIVE", reasons.get("4"));
+    }
+
+    @Test
+    public void firstFailingRuleWins() {
+        assertEquals("ESTIMATIVARENDA_NOT_POSITIVE", reasons.get(ZEROS));
+    }
+
+    @Test
+    public void rejectsAreTheRowsAcceptDrops() {
+        Dataset<Row> tagged = renda(renda("1", 3000.0, 1), renda(ZEROS, 0.0, 0))
+                .withColumn(CleanupRules.REASON, CleanupRules.rejectReason(CleanupRules.rulesFor(SourceTable.RENDA)));
+
+        List<Row> rejects = CleanupRules.rejects(tagged, SourceTable.RENDA).collectAsList();
+
+        assertEquals(1, rejects.size());
+        assertEquals(ZEROS, rejects.get(0).getAs(SourceTable.KEY));
+        assertEquals(SourceTable.RENDA.fileName(), rejects.get(0).getAs(CleanupRules.SOURCE));
+        assertEquals(0, CleanupRules.accept(tagged, CleanupRules.rulesFor(SourceTable.RENDA))
+                                    .filter(col(SourceTable.KEY).equalTo(ZEROS))
+                                    .count());
+    }
+
+    /**
+     * Builds a renda row whose other columns pass their rules.
+     */
+    private static Map<String, Object> renda(String cpf, Double income, Integer declarations) {
+        Map<String, Object> values = new TreeMap<>();
+        values.put("HS_CPF", cpf);
+        values.put("ESTIMATIVARENDA", income);
+        values.put("QTDDECLARACAO10", declarations);
+        for (CleanupRule rule : CleanupRules.rulesFor(SourceTable.RENDA)) {
+            if (!values.containsKey(rule.getColumn())) {
+                values.put(rule.getColumn(), 1);
+            }
+        }
+        return values;
+    }
+
+    @SafeVarargs
+    private static Dataset<Row> renda(Map<String, Object>... rendas) {
+        StructType schema = SourceTable.RENDA.schema();
+        List<Row> rows = new ArrayList<>();
+        for (Map<String, Object> renda : rendas) {
+            Object[] values = new Object[schema.size()];
+            for (Map.Entry<String, Object> value : renda.entrySet()) {
+                values[schema.fieldIndex(value.getKey())] = value.getValue();
+            }
+            rows.add(RowFactory.create(values));
+        }
+        return sparkSession.createDataFrame(rows, schema);
+    }
+}
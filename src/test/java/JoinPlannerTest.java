@@ -0,0 +1,110 @@
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.StructField;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.apache.spark.sql.functions.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that joining the skewed keys apart, salted and unioned with the other keys, gives the same rows as the
+ * plain partitioned join. The tables hold distinct CPFs, and a planted all-zeros CPF that is heavy in basico and
+ * renda.
+ */
+public class JoinPlannerTest {
+
+    private static final String ZEROS = "00000000000";
+    private static final int DISTINCT = 200;
+    private static final int BASICO_ZEROS = 60;
+    private static final int RENDA_ZEROS = 40;
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static SparkSession sparkSession;
+    private static String parquetDir;
+
+    @BeforeClass
+    public static void writeTables() throws IOException {
+        sparkSession = SparkSession.builder().master("local[2]").appName("JoinPlannerTest")
+                                   .config("spark.sql.shuffle.partitions", 2)
+                                   .getOrCreate();
+        parquetDir = FOLDER.newFolder("parquet").toString();
+        for (SourceTable table : SourceTable.values()) {
+            int zeros = table == SourceTable.BASICO ? BASICO_ZEROS : table == SourceTable.RENDA ? RENDA_ZEROS : 1;
+            table(table, zeros).write().parquet(new Path(parquetDir, table.fileName()).toString());
+        }
+    }
+
+    @AfterClass
+    public static void stopSession() {
+        sparkSession.stop();
+    }
+
+    @Test
+    public void saltedJoinMatchesPlainJoin() throws IOException {
+        // Nothing is broadcast by size, so the heavy rows of renda are salted and the others are broadcast
+        JoinPlanner salted = new JoinPlanner(8, -1, new SkewDetector(1.0, 10, 7), 5, 4);
+        Dataset<Row> joined = salted.join(sparkSession, parquetDir);
+        Dataset<Row> plain = new JoinPlanner(8, -1).join(sparkSession, parquetDir);
+
+        TreeSet<String> sources = new TreeSet<>();
+        for (SkewedKey key : salted.getSkewedKeys()) {
+            assertEquals(ZEROS, key.getKey());
+            sources.add(key.getSource());
+        }
+        assertEquals(new TreeSet<>(Arrays.asList(SourceTable.BASICO.fileName(), SourceTable.RENDA.fileName())),
+                     sources);
+
+        assertEquals(Arrays.asList(plain.columns()), Arrays.asList(joined.columns()));
+        assertEquals(DISTINCT + BASICO_ZEROS * RENDA_ZEROS, joined.count());
+        assertEquals(rowsByKey(plain), rowsByKey(joined));
+    }
+
+    @Test
+    public void withoutSkewedKeysJoinsEveryKeyTheSameWay() throws IOException {
+        JoinPlanner planner = new JoinPlanner(2, -1, new SkewDetector(1.0, 10_000, 7), 5, 4);
+
+        assertEquals(DISTINCT + BASICO_ZEROS * RENDA_ZEROS, planner.join(sparkSession, parquetDir).count());
+        assertTrue(planner.getSkewedKeys().isEmpty());
+    }
+
+    private static TreeSet<String> rowsByKey(Dataset<Row> joined) {
+        TreeSet<String> rows = new TreeSet<>();
+        for (Row row : joined.groupBy(SourceTable.KEY).count().collectAsList()) {
+            rows.add(row.mkString("|"));
+        }
+        return rows;
+    }
+
+    /**
+     * Builds a source table of distinct CPFs plus the all-zeros CPF repeated, with the other columns null.
+     */
+    private static Dataset<Row> table(SourceTable table, int zeros) {
+        List<Column> columns = new ArrayList<>();
+        for (StructField field : table.schema().fields()) {
+            columns.add(SourceTable.KEY.equals(field.name())
+                                ? col(SourceTable.KEY)
+                                : lit(null).cast(field.dataType()).as(field.name()));
+        }
+        Column[] projection = columns.toArray(new Column[0]);
+        return sparkSession.range(DISTINCT)
+                           .select(format_string("%011d", col("id").plus(100)).as(SourceTable.KEY))
+                           .union(sparkSession.range(zeros).select(lit(ZEROS).as(SourceTable.KEY)))
+                           .select(projection);
+    }
+}
@@ -0,0 +1,137 @@
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the exercises answered from the {@link ResultCube} match the exact answers over pessoas, including
+ * the groups whose dimension is null and the grouping_id of each grouping.
+ */
+public class ResultCubeTest {
+
+    private static SparkSession sparkSession;
+
+    @BeforeClass
+    public static void startSession() {
+        sparkSession = SparkSession.builder().master("local[2]").appName("ResultCubeTest")
+                                   .config("spark.sql.shuffle.partitions", 2)
+                                   .getOrCreate();
+        Dataset<Row> pessoas = pessoas(
+                pessoa("1", "HETERO", 1.0, 1, 12000.0, 1),
+                pessoa("2", "HETERO", 0.0, 0, 8000.0, 0),
+                pessoa("3", "HOMO", 0.0, 1, 6000.0, 1),
+                pessoa("4", "BI", 1.0, 0, 3000.0, null),
+                pessoa("5", null, null, 1, 9000.0, 1),
+                pessoa("6", null, 1.0, null, 20000.0, 0),
+                pessoa("7", "PAN", null, 0, null, 1),
+                pessoa("8", "HETERO", 0.0, 0, 5000.0, 0));
+        pessoas.createOrReplaceTempView("pessoas");
+        ResultCube.build(pessoas).cache().createOrReplaceTempView("cube_under_test");
+    }
+
+    @AfterClass
+    public static void stopSession() {
+        sparkSession.stop();
+    }
+
+    @After
+    public void dropCube() {
+        sparkSession.catalog().dropTempView(ResultCube.VIEW);
+    }
+
+    @Test
+    public void clientsByOrientationMatchExact() {
+        assertCubeMatchesExact("exercise1");
+    }
+
+    @Test
+    public void proposalsAbove10000MatchExact() {
+        assertCubeMatchesExact("exercise3");
+    }
+
+    @Test
+    public void bolsaFamiliaClientsMatchExact() {
+        assertCubeMatchesExact("exercise4");
+    }
+
+    @Test
+    public void socioTargetAbove5000MatchExact() {
+        assertCubeMatchesExact("exercise8");
+    }
+
+    @Test
+    public void nullGroupsCountZeroLikeTheExactCount() {
+        assertTrue(run("exercise1").contains("null|0"));
+        assertTrue(run("exercise8").contains("1|null|0"));
+    }
+
+    private static void assertCubeMatchesExact(String analysis) {
+        TreeSet<String> exact = run(analysis);
+        assertFalse(exact.isEmpty());
+
+        sparkSession.table("cube_under_test").createOrReplaceTempView(ResultCube.VIEW);
+        assertTrue(ResultCube.isAvailable(sparkSession));
+        assertEquals(exact, run(analysis));
+    }
+
+    private static TreeSet<String> run(String analysis) {
+        TreeSet<String> results = new TreeSet<>();
+        for (Object result : Main.analyses().get(analysis).run(sparkSession).collectAsList()) {
+            results.add(String.valueOf(result));
+        }
+        return results;
+    }
+
+    private static Map<String, Object> pessoa(String cpf, String orientation, Double target, Integer socio,
+                                              Double income, Integer bolsaFamilia) {
+        Map<String, Object> values = new TreeMap<>();
+        values.put("HS_CPF", cpf);
+        values.put("ORIENTACAO_SEXUAL", orientation);
+        values.put("TARGET", target);
+        values.put("SOCIOEMPRESA", socio);
+        values.put("ESTIMATIVARENDA", income);
+        values.put("BOLSAFAMILIA", bolsaFamilia);
+        return values;
+    }
+
+    /**
+     * Builds a pessoas dataset with the columns of every source table, the ones not given being null.
+     */
+    @SafeVarargs
+    private static Dataset<Row> pessoas(Map<String, Object>... pessoas) {
+        StructType schema = new StructType();
+        for (SourceTable table : SourceTable.values()) {
+            for (StructField field : table.schema().fields()) {
+                if (!Arrays.asList(schema.fieldNames()).contains(field.name())) {
+                    schema = schema.add(field);
+                }
+            }
+        }
+        List<Row> rows = new ArrayList<>();
+        for (Map<String, Object> pessoa : pessoas) {
+            Object[] values = new Object[schema.size()];
+            for (Map.Entry<String, Object> value : pessoa.entrySet()) {
+                values[schema.fieldIndex(value.getKey())] = value.getValue();
+            }
+            rows.add(RowFactory.create(values));
+        }
+        return sparkSession.createDataFrame(rows, schema);
+    }
+}
@@ -0,0 +1,82 @@
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.apache.spark.sql.functions.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks which keys {@link SkewDetector} reports as heavy, over a table of distinct CPFs with a planted all-zeros
+ * CPF. The whole table is sampled so the counts are exact.
+ */
+public class SkewDetectorTest {
+
+    private static final String ZEROS = "00000000000";
+    private static final String ONES = "11111111111";
+
+    private static SparkSession sparkSession;
+
+    @BeforeClass
+    public static void startSession() {
+        sparkSession = SparkSession.builder().master("local[2]").appName("SkewDetectorTest")
+                                   .config("spark.sql.shuffle.partitions", 2)
+                                   .getOrCreate();
+    }
+
+    @AfterClass
+    public static void stopSession() {
+        sparkSession.stop();
+    }
+
+    @Test
+    public void reportsKeyAboveAverageJoinPartition() {
+        // 1400 rows over 4 partitions make an average partition of 350 rows
+        List<SkewedKey> keys = new SkewDetector(1.0, 100, 7).detect(keys(1000, ZEROS, 400), SourceTable.BASICO, 4);
+
+        assertEquals(1, keys.size());
+        assertEquals(ZEROS, keys.get(0).getKey());
+        assertEquals(400, keys.get(0).getEstimatedRows());
+        assertEquals(SourceTable.BASICO.fileName(), keys.get(0).getSource());
+    }
+
+    @Test
+    public void ignoresKeyBelowAverageJoinPartition() {
+        // 1400 rows over 2 partitions make an average partition of 700 rows
+        assertTrue(new SkewDetector(1.0, 100, 7).detect(keys(1000, ZEROS, 400), SourceTable.BASICO, 2).isEmpty());
+    }
+
+    @Test
+    public void ignoresKeyBelowMinRows() {
+        assertTrue(new SkewDetector(1.0, 500, 7).detect(keys(1000, ZEROS, 400), SourceTable.BASICO, 8).isEmpty());
+    }
+
+    @Test
+    public void reportsHeaviestKeyFirst() {
+        Dataset<Row> dataset = keys(1000, ONES, 300).union(keys(0, ZEROS, 400));
+
+        List<SkewedKey> keys = new SkewDetector(1.0, 100, 7).detect(dataset, SourceTable.BASICO, 8);
+
+        assertEquals(2, keys.size());
+        assertEquals(ZEROS, keys.get(0).getKey());
+        assertEquals(ONES, keys.get(1).getKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptySample() {
+        new SkewDetector(0, 100, 7);
+    }
+
+    /**
+     * Builds a table of distinct CPFs plus a planted CPF repeated a number of times.
+     */
+    private static Dataset<Row> keys(long distinct, String planted, long plantedRows) {
+        return sparkSession.range(distinct).select(format_string("%011d", col("id").plus(100)).as(SourceTable.KEY))
+                           .union(sparkSession.range(plantedRows).select(lit(planted).as(SourceTable.KEY)));
+    }
+}